@@ -5,12 +5,17 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.net.Uri;
 import android.os.AsyncTask;
 import android.widget.ImageView;
 
+import com.nityankhanna.androidutils.http.HttpDispatcher;
+import com.nityankhanna.androidutils.http.RequestPriority;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.concurrent.Executor;
 
 /**
  * Created by Nityan Khanna on 13/11/13.
@@ -34,7 +39,7 @@ public class ImageDownloader {
 	 */
 	public static void loadImageFromUrlAsync(String url, ImageDownloaderCallback callback) {
 		imageDownloaderTask = new ImageDownloaderTask(url, callback);
-		imageDownloaderTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+		imageDownloaderTask.executeOnExecutor(getExecutor(url, imageDownloaderTask));
 	}
 
 	/**
@@ -45,7 +50,25 @@ public class ImageDownloader {
 	 */
 	public static void loadImageFromUrlAsync(String url, ImageView imageView) {
 		imageDownloaderTask = new ImageDownloaderTask(url, imageView);
-		imageDownloaderTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+		imageDownloaderTask.executeOnExecutor(getExecutor(url, imageDownloaderTask));
+	}
+
+	/**
+	 * Gets an executor which queues a task in the HttpDispatcher, and cancels it if it is dropped from the queue.
+	 *
+	 * @param url  The url of the image.
+	 * @param task The task.
+	 *
+	 * @return Returns the executor.
+	 */
+	private static Executor getExecutor(String url, final ImageDownloaderTask task) {
+		return HttpDispatcher.getInstance().getExecutor(Uri.parse(url).getHost(), RequestPriority.NORMAL, new Runnable() {
+
+			@Override
+			public void run() {
+				task.cancel(false);
+			}
+		});
 	}
 
 	public static void cancelImageDownload() {
@@ -0,0 +1,18 @@
+package com.nityankhanna.androidutils.http;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+
+/**
+ * The default transport, which sends requests over HTTP/1.1 with the shared client of the HttpConnectionManager.
+ */
+public final class ApacheHttpTransport implements HttpTransport {
+
+	@Override
+	public HttpResponse execute(HttpUriRequest request, HttpContext context) throws IOException {
+		return HttpConnectionManager.getInstance().getHttpClient().execute(request, context);
+	}
+}
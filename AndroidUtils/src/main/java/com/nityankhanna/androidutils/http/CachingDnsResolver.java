@@ -0,0 +1,172 @@
+package com.nityankhanna.androidutils.http;
+
+import android.util.LruCache;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A resolver which caches the addresses of another resolver in memory.
+ * <p/>
+ * Addresses are fresh for their time to live. Once they expire they are still returned for a stale period while they
+ * are refreshed in the background, so only the first lookup of a host, or one after a long idle period, waits for the
+ * network. Call clear when the network changes, since the addresses of a host can depend on the network.
+ */
+public final class CachingDnsResolver implements DnsResolver {
+
+	private static final int MAX_ENTRIES = 128;
+
+	private static final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+
+	private final DnsResolver delegate;
+	private final LruCache<String, Entry> entries = new LruCache<>(MAX_ENTRIES);
+	private final AtomicInteger hitCount = new AtomicInteger();
+	private final AtomicInteger missCount = new AtomicInteger();
+	private final Set<String> refreshingHosts = Collections.synchronizedSet(new HashSet<String>());
+	private final long staleNanos;
+	private final long ttlNanos;
+
+	/**
+	 * Initializes a new instance of the CachingDnsResolver class, which caches addresses for a minute and refreshes
+	 * them in the background for ten minutes after that.
+	 *
+	 * @param delegate The resolver which resolves the hosts.
+	 */
+	public CachingDnsResolver(DnsResolver delegate) {
+		this(delegate, 1, TimeUnit.MINUTES, 10, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Initializes a new instance of the CachingDnsResolver class.
+	 *
+	 * @param delegate  The resolver which resolves the hosts.
+	 * @param ttl       The time addresses are fresh for.
+	 * @param ttlUnit   The time unit of the time to live.
+	 * @param stale     The time expired addresses are still returned for while they are refreshed, or 0 to wait for
+	 *                  the refreshed addresses.
+	 * @param staleUnit The time unit of the stale period.
+	 */
+	public CachingDnsResolver(DnsResolver delegate, long ttl, TimeUnit ttlUnit, long stale, TimeUnit staleUnit) {
+		this.delegate = delegate;
+		this.ttlNanos = ttlUnit.toNanos(ttl);
+		this.staleNanos = staleUnit.toNanos(stale);
+	}
+
+	@Override
+	public List<InetAddress> lookup(String host) throws UnknownHostException {
+
+		Entry entry = entries.get(host);
+		long nowNanos = System.nanoTime();
+
+		if (entry != null && nowNanos - entry.resolvedNanos < ttlNanos) {
+			hitCount.incrementAndGet();
+			return entry.addresses;
+		}
+
+		if (entry != null && nowNanos - entry.resolvedNanos < ttlNanos + staleNanos) {
+			hitCount.incrementAndGet();
+			refresh(host);
+			return entry.addresses;
+		}
+
+		missCount.incrementAndGet();
+
+		return resolve(host);
+	}
+
+	/**
+	 * Resolves a host in the background, so the first request to it does not wait for the lookup.
+	 *
+	 * @param host The host name.
+	 */
+	public void prefetch(String host) {
+
+		Entry entry = entries.get(host);
+
+		if (entry == null || System.nanoTime() - entry.resolvedNanos >= ttlNanos) {
+			refresh(host);
+		}
+	}
+
+	/**
+	 * Removes every cached address.
+	 */
+	public void clear() {
+		entries.evictAll();
+	}
+
+	/**
+	 * Gets the number of lookups served from the cache, including those of stale addresses.
+	 *
+	 * @return Returns the hit count.
+	 */
+	public int getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Gets the number of lookups which waited for the resolver.
+	 *
+	 * @return Returns the miss count.
+	 */
+	public int getMissCount() {
+		return missCount.get();
+	}
+
+	private List<InetAddress> resolve(String host) throws UnknownHostException {
+
+		List<InetAddress> addresses = delegate.lookup(host);
+
+		if (!addresses.isEmpty()) {
+			entries.put(host, new Entry(Collections.unmodifiableList(addresses), System.nanoTime()));
+		}
+
+		return addresses;
+	}
+
+	/**
+	 * Resolves a host in the background, unless it is already being refreshed. The cached addresses are kept if the
+	 * lookup fails.
+	 *
+	 * @param host The host name.
+	 */
+	private void refresh(final String host) {
+
+		if (!refreshingHosts.add(host)) {
+			return;
+		}
+
+		refreshExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					resolve(host);
+				} catch (UnknownHostException e) {
+					e.printStackTrace();
+				} finally {
+					refreshingHosts.remove(host);
+				}
+			}
+		});
+	}
+
+	private static final class Entry {
+
+		private final List<InetAddress> addresses;
+		private final long resolvedNanos;
+
+		private Entry(List<InetAddress> addresses, long resolvedNanos) {
+			this.addresses = addresses;
+			this.resolvedNanos = resolvedNanos;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.nityankhanna.androidutils.http;
+
+/**
+ * Represents the number of bytes sent and received for a request, before and after compression.
+ * <p/>
+ * Only compressed bodies are counted, the counts are final once the response body has been read.
+ */
+public final class CompressionStats {
+
+	private CountingOutputStream requestBody;
+	private CountingOutputStream requestWire;
+	private CountingInputStream responseBody;
+	private CountingInputStream responseWire;
+
+	/**
+	 * Gets the size of the request body before compression.
+	 *
+	 * @return Returns the number of bytes.
+	 */
+	public long getRequestBytes() {
+		return requestBody == null ? 0 : requestBody.getCount();
+	}
+
+	/**
+	 * Gets the number of request body bytes sent over the network.
+	 *
+	 * @return Returns the number of bytes.
+	 */
+	public long getRequestWireBytes() {
+		return requestWire == null ? 0 : requestWire.getCount();
+	}
+
+	/**
+	 * Gets the size of the response body after decompression.
+	 *
+	 * @return Returns the number of bytes.
+	 */
+	public long getResponseBytes() {
+		return responseBody == null ? 0 : responseBody.getCount();
+	}
+
+	/**
+	 * Gets the number of response body bytes received over the network.
+	 *
+	 * @return Returns the number of bytes.
+	 */
+	public long getResponseWireBytes() {
+		return responseWire == null ? 0 : responseWire.getCount();
+	}
+
+	/**
+	 * Gets the number of bytes compression saved in both directions.
+	 *
+	 * @return Returns the number of bytes saved.
+	 */
+	public long getSavedBytes() {
+		return (getRequestBytes() - getRequestWireBytes()) + (getResponseBytes() - getResponseWireBytes());
+	}
+
+	void setRequestStreams(CountingOutputStream body, CountingOutputStream wire) {
+		this.requestBody = body;
+		this.requestWire = wire;
+	}
+
+	void setResponseStreams(CountingInputStream body, CountingInputStream wire) {
+		this.responseBody = body;
+		this.responseWire = wire;
+	}
+
+	@Override
+	public String toString() {
+		return "CompressionStats{" +
+				"requestBytes=" + getRequestBytes() +
+				", requestWireBytes=" + getRequestWireBytes() +
+				", responseBytes=" + getResponseBytes() +
+				", responseWireBytes=" + getResponseWireBytes() +
+				'}';
+	}
+}
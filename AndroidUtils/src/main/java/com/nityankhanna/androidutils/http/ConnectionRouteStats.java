@@ -0,0 +1,73 @@
+package com.nityankhanna.androidutils.http;
+
+/**
+ * Represents a snapshot of the connection pool statistics for a single route.
+ */
+public final class ConnectionRouteStats {
+
+	private final String host;
+	private final int leased;
+	private final int available;
+	private final int pending;
+
+	/**
+	 * Initializes a new instance of the ConnectionRouteStats class.
+	 *
+	 * @param host      The host of the route.
+	 * @param leased    The number of connections currently in use.
+	 * @param available The number of idle connections kept alive in the pool.
+	 * @param pending   The number of requests waiting for a connection.
+	 */
+	public ConnectionRouteStats(String host, int leased, int available, int pending) {
+		this.host = host;
+		this.leased = leased;
+		this.available = available;
+		this.pending = pending;
+	}
+
+	/**
+	 * Gets the host of the route.
+	 *
+	 * @return Returns the host of the route.
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * Gets the number of connections currently in use.
+	 *
+	 * @return Returns the number of leased connections.
+	 */
+	public int getLeased() {
+		return leased;
+	}
+
+	/**
+	 * Gets the number of idle connections kept alive in the pool.
+	 *
+	 * @return Returns the number of available connections.
+	 */
+	public int getAvailable() {
+		return available;
+	}
+
+	/**
+	 * Gets the number of requests waiting for a connection.
+	 *
+	 * @return Returns the number of pending requests.
+	 */
+	public int getPending() {
+		return pending;
+	}
+
+	@Override
+	public String toString() {
+		return "ConnectionRouteStats{" +
+				"host='" + host + '\'' +
+				", leased=" + leased +
+				", available=" + available +
+				", pending=" + pending +
+				'}';
+	}
+}
@@ -0,0 +1,59 @@
+package com.nityankhanna.androidutils.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream which counts the bytes read through it.
+ */
+final class CountingInputStream extends FilterInputStream {
+
+	private volatile long count;
+
+	CountingInputStream(InputStream inputStream) {
+		super(inputStream);
+	}
+
+	long getCount() {
+		return count;
+	}
+
+	@Override
+	public int read() throws IOException {
+
+		int value = super.read();
+
+		if (value != -1) {
+			count++;
+		}
+
+		return value;
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+
+		int read = super.read(buffer, offset, length);
+
+		if (read > 0) {
+			count += read;
+		}
+
+		return read;
+	}
+
+	@Override
+	public long skip(long byteCount) throws IOException {
+
+		long skipped = super.skip(byteCount);
+		count += skipped;
+
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+}
@@ -0,0 +1,33 @@
+package com.nityankhanna.androidutils.http;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream which counts the bytes written through it.
+ */
+final class CountingOutputStream extends FilterOutputStream {
+
+	private volatile long count;
+
+	CountingOutputStream(OutputStream outputStream) {
+		super(outputStream);
+	}
+
+	long getCount() {
+		return count;
+	}
+
+	@Override
+	public void write(int oneByte) throws IOException {
+		out.write(oneByte);
+		count++;
+	}
+
+	@Override
+	public void write(byte[] buffer, int offset, int length) throws IOException {
+		out.write(buffer, offset, length);
+		count += length;
+	}
+}
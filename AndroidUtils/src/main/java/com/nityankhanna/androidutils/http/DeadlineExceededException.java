@@ -0,0 +1,18 @@
+package com.nityankhanna.androidutils.http;
+
+import java.io.InterruptedIOException;
+
+/**
+ * An exception which is thrown when a request does not complete before its deadline.
+ */
+public class DeadlineExceededException extends InterruptedIOException {
+
+	/**
+	 * Initializes a new instance of the DeadlineExceededException with a specified message.
+	 *
+	 * @param detailMessage The message of the exception.
+	 */
+	public DeadlineExceededException(String detailMessage) {
+		super(detailMessage);
+	}
+}
@@ -0,0 +1,34 @@
+package com.nityankhanna.androidutils.http;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An interface for resolving host names to addresses, used by the connections of HttpClientService.
+ */
+public interface DnsResolver {
+
+	/**
+	 * A resolver which uses the resolver of the system.
+	 */
+	DnsResolver SYSTEM = new DnsResolver() {
+
+		@Override
+		public List<InetAddress> lookup(String host) throws UnknownHostException {
+			return Arrays.asList(InetAddress.getAllByName(host));
+		}
+	};
+
+	/**
+	 * Resolves a host name. It is called on the background thread which opens the connection.
+	 *
+	 * @param host The host name.
+	 *
+	 * @return Returns the addresses of the host, in order of preference.
+	 *
+	 * @throws UnknownHostException If the host cannot be resolved.
+	 */
+	List<InetAddress> lookup(String host) throws UnknownHostException;
+}
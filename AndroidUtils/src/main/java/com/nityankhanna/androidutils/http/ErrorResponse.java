@@ -9,6 +9,7 @@ package com.nityankhanna.androidutils.http;
  */
 public class ErrorResponse {
 
+	private Exception exception;
 	private String message;
 
 	/**
@@ -17,6 +18,24 @@ public class ErrorResponse {
 	public ErrorResponse() {
 	}
 
+	/**
+	 * Gets the exception which caused the error.
+	 *
+	 * @return Returns the exception, or null if the error was returned by the server.
+	 */
+	public Exception getException() {
+		return exception;
+	}
+
+	/**
+	 * Sets the exception which caused the error.
+	 *
+	 * @param exception The exception.
+	 */
+	public void setException(Exception exception) {
+		this.exception = exception;
+	}
+
 	/**
 	 * Gets the message.
 	 *
@@ -0,0 +1,957 @@
+package com.nityankhanna.androidutils.http;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.apache.http.HttpStatus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Downloads a file to disk with an HttpClientService, writing the body through a FileChannel.
+ * <p/>
+ * The body is written to a .part file next to the destination and the progress is saved to a .state file as it is
+ * written, so an interrupted download resumes with a Range request from where it stopped, even after the process has
+ * been restarted. The ETag or Last-Modified date of the file is sent in an If-Range header, and the download starts
+ * over if the file has changed on the server. When the server supports Range requests, a large file can be downloaded
+ * in several segments at once, each written at its own offset of the file.
+ * <p/>
+ * Each segment reads into a single buffer, and progress is posted to the main thread with a single runnable, so no
+ * memory is allocated per chunk. The download must be started and cancelled from the main thread.
+ */
+public final class FileDownload {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int MAX_RESUME_ATTEMPTS = 3;
+	private static final long MIN_SEGMENT_SIZE = 1024 * 1024;
+	private static final String PART_SUFFIX = ".part";
+	private static final long STATE_INTERVAL = 1024 * 1024;
+	private static final String STATE_SUFFIX = ".state";
+	private static final int STATE_VERSION = 1;
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private static final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+
+	private final File file;
+	private final List<HttpHeader> headers = new ArrayList<>();
+	private final Handler mainHandler = new Handler(Looper.getMainLooper());
+	private final File partFile;
+	private final AtomicBoolean progressPosted = new AtomicBoolean();
+	private final List<Segment> segments = new CopyOnWriteArrayList<>();
+	private final File stateFile;
+	private final AtomicBoolean statePending = new AtomicBoolean();
+	private final String url;
+	private volatile FileChannel channel;
+	private volatile long contentLength = -1;
+	private volatile String entityTag;
+	private volatile int generation;
+	private volatile String lastModified;
+	private boolean completing;
+	private OnDownloadListener listener;
+	private RequestPriority priority = RequestPriority.NORMAL;
+	private boolean running;
+	private int segmentCount = 1;
+	private volatile boolean stale;
+
+	private final Runnable progressRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+
+			progressPosted.set(false);
+
+			if (listener != null) {
+				listener.onDownloadProgress(FileDownload.this, getBytesDownloaded(), contentLength);
+			}
+		}
+	};
+
+	private final Runnable stateRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			statePending.set(false);
+			saveState();
+		}
+	};
+
+	/**
+	 * Initializes a new instance of the FileDownload class.
+	 *
+	 * @param url  The URL of the file.
+	 * @param file The destination of the file.
+	 */
+	public FileDownload(String url, File file) {
+		this.url = url;
+		this.file = file;
+		this.partFile = new File(file.getPath() + PART_SUFFIX);
+		this.stateFile = new File(file.getPath() + PART_SUFFIX + STATE_SUFFIX);
+	}
+
+	/**
+	 * Gets the URL of the file.
+	 *
+	 * @return Returns the URL.
+	 */
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * Gets the destination of the file.
+	 *
+	 * @return Returns the file.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Gets the length of the file.
+	 *
+	 * @return Returns the length of the file, or -1 if it is not known yet.
+	 */
+	public long getContentLength() {
+		return contentLength;
+	}
+
+	/**
+	 * Gets the number of bytes written to disk, including those of earlier attempts.
+	 *
+	 * @return Returns the number of bytes downloaded.
+	 */
+	public long getBytesDownloaded() {
+
+		long bytesDownloaded = 0;
+
+		for (Segment segment : segments) {
+			bytesDownloaded += segment.position - segment.start;
+		}
+
+		return bytesDownloaded;
+	}
+
+	/**
+	 * Adds a header sent with every request of the download, such as an Authorization header.
+	 *
+	 * @param header The header.
+	 */
+	public void addHeader(HttpHeader header) {
+		headers.add(header);
+	}
+
+	/**
+	 * Gets the listener of the download.
+	 *
+	 * @return Returns the listener, or null if there is none.
+	 */
+	public OnDownloadListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Sets the listener of the download.
+	 *
+	 * @param listener The listener.
+	 */
+	public void setListener(OnDownloadListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Gets the priority of the requests of the download.
+	 *
+	 * @return Returns the priority.
+	 */
+	public RequestPriority getPriority() {
+		return priority;
+	}
+
+	/**
+	 * Sets the priority of the requests of the download.
+	 *
+	 * @param priority The priority.
+	 */
+	public void setPriority(RequestPriority priority) {
+		this.priority = priority;
+	}
+
+	/**
+	 * Gets the maximum number of segments downloaded at once.
+	 *
+	 * @return Returns the maximum number of segments.
+	 */
+	public int getSegmentCount() {
+		return segmentCount;
+	}
+
+	/**
+	 * Sets the maximum number of segments downloaded at once. The file is only split when the server supports Range
+	 * requests, and every segment is at least 1 MB.
+	 *
+	 * @param segmentCount The maximum number of segments.
+	 */
+	public void setSegmentCount(int segmentCount) {
+
+		if (segmentCount < 1) {
+			throw new IllegalArgumentException("The segment count must be at least 1");
+		}
+
+		this.segmentCount = segmentCount;
+	}
+
+	/**
+	 * Checks whether the download is running.
+	 *
+	 * @return Returns true if the download has been started and has not completed, failed or been cancelled.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Starts or resumes the download.
+	 */
+	public void start() {
+
+		if (running) {
+			throw new IllegalStateException("The download is already running");
+		}
+
+		running = true;
+		completing = false;
+
+		final int startGeneration = ++generation;
+
+		diskExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+
+				try {
+					prepare();
+				} catch (IOException e) {
+					e.printStackTrace();
+					postFailure(startGeneration, createFailureMessage(e));
+					return;
+				}
+
+				mainHandler.post(new Runnable() {
+
+					@Override
+					public void run() {
+
+						if (generation != startGeneration) {
+							return;
+						}
+
+						postProgress();
+
+						for (Segment segment : segments) {
+							if (!segment.isComplete()) {
+								segment.execute();
+							}
+						}
+
+						completeIfDone();
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Cancels the download. The progress is kept, so starting the download again resumes it.
+	 */
+	public void cancel() {
+
+		if (!running) {
+			return;
+		}
+
+		stop();
+	}
+
+	/**
+	 * Cancels the download and deletes the partially downloaded file and its progress.
+	 */
+	public void delete() {
+
+		cancel();
+
+		diskExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				discard();
+			}
+		});
+	}
+
+	/**
+	 * Opens the part file and restores the saved progress, on the disk thread.
+	 *
+	 * @throws IOException
+	 */
+	private void prepare() throws IOException {
+
+		if (channel == null) {
+			channel = new RandomAccessFile(partFile, "rw").getChannel();
+		}
+
+		if (segments.isEmpty() && !loadState()) {
+			channel.truncate(0);
+			segments.add(new Segment(0, -1));
+		}
+	}
+
+	/**
+	 * Stops every segment and saves the progress.
+	 */
+	private void stop() {
+
+		running = false;
+		generation++;
+
+		for (Segment segment : segments) {
+			if (segment.call != null) {
+				segment.call.cancel();
+			}
+		}
+
+		diskExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+
+				if (stale) {
+					discard();
+				} else {
+					saveState();
+					closeChannel();
+				}
+			}
+		});
+	}
+
+	private void fail(HttpResponseMessage response) {
+
+		if (!running) {
+			return;
+		}
+
+		stop();
+
+		if (listener != null) {
+			listener.onDownloadFailed(this, response);
+		}
+	}
+
+	private void postFailure(final int failedGeneration, final HttpResponseMessage response) {
+
+		mainHandler.post(new Runnable() {
+
+			@Override
+			public void run() {
+				if (generation == failedGeneration) {
+					fail(response);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Moves the file to its destination once every segment has completed. Segments which complete at the same time
+	 * can each see every segment complete, so only the first of them moves the file.
+	 */
+	private void completeIfDone() {
+
+		if (completing) {
+			return;
+		}
+
+		for (Segment segment : segments) {
+			if (!segment.isComplete()) {
+				return;
+			}
+		}
+
+		completing = true;
+
+		final int completedGeneration = generation;
+
+		diskExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+
+				if (generation != completedGeneration) {
+					return;
+				}
+
+				closeChannel();
+
+				if ((file.exists() && !file.delete()) || !partFile.renameTo(file)) {
+					postFailure(completedGeneration, createFailureMessage(new IOException("Could not move the download to " + file)));
+					return;
+				}
+
+				stateFile.delete();
+
+				mainHandler.post(new Runnable() {
+
+					@Override
+					public void run() {
+
+						if (generation != completedGeneration) {
+							return;
+						}
+
+						running = false;
+						segments.clear();
+
+						if (listener != null) {
+							listener.onDownloadCompleted(FileDownload.this);
+						}
+					}
+				});
+			}
+		});
+	}
+
+	private void postProgress() {
+		if (progressPosted.compareAndSet(false, true)) {
+			mainHandler.post(progressRunnable);
+		}
+	}
+
+	private void scheduleStateSave() {
+		if (statePending.compareAndSet(false, true)) {
+			diskExecutor.execute(stateRunnable);
+		}
+	}
+
+	/**
+	 * Restores the progress saved by an earlier attempt, on the disk thread.
+	 *
+	 * @return Returns true if the progress was restored.
+	 */
+	private boolean loadState() {
+
+		if (!stateFile.exists()) {
+			return false;
+		}
+
+		DataInputStream inputStream = null;
+
+		try {
+			inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(stateFile)));
+
+			if (inputStream.readInt() != STATE_VERSION || !url.equals(inputStream.readUTF())) {
+				return false;
+			}
+
+			String savedEntityTag = inputStream.readUTF();
+			String savedLastModified = inputStream.readUTF();
+			long savedContentLength = inputStream.readLong();
+			int count = inputStream.readInt();
+			List<Segment> savedSegments = new ArrayList<>(count);
+
+			for (int i = 0; i < count; i++) {
+
+				Segment segment = new Segment(inputStream.readLong(), inputStream.readLong());
+
+				segment.position = inputStream.readLong();
+				savedSegments.add(segment);
+			}
+
+			entityTag = savedEntityTag.isEmpty() ? null : savedEntityTag;
+			lastModified = savedLastModified.isEmpty() ? null : savedLastModified;
+			contentLength = savedContentLength;
+			segments.addAll(savedSegments);
+
+			return !segments.isEmpty();
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		} finally {
+			try {
+				if (inputStream != null) {
+					inputStream.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Saves the progress, on the disk thread. Positions are only advanced once their bytes have been written, so the
+	 * saved progress never claims more than the part file holds.
+	 */
+	private void saveState() {
+
+		if (segments.isEmpty()) {
+			return;
+		}
+
+		File temp = new File(stateFile.getPath() + TEMP_SUFFIX);
+		DataOutputStream outputStream = null;
+
+		try {
+			outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+
+			outputStream.writeInt(STATE_VERSION);
+			outputStream.writeUTF(url);
+			outputStream.writeUTF(entityTag == null ? "" : entityTag);
+			outputStream.writeUTF(lastModified == null ? "" : lastModified);
+			outputStream.writeLong(contentLength);
+			outputStream.writeInt(segments.size());
+
+			for (Segment segment : segments) {
+				outputStream.writeLong(segment.start);
+				outputStream.writeLong(segment.end);
+				outputStream.writeLong(segment.position);
+			}
+
+			outputStream.close();
+			outputStream = null;
+
+			stateFile.delete();
+			temp.renameTo(stateFile);
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if (outputStream != null) {
+					outputStream.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+			temp.delete();
+		}
+	}
+
+	/**
+	 * Forgets the progress and deletes the part file, on the disk thread.
+	 */
+	private void discard() {
+
+		closeChannel();
+
+		segments.clear();
+		entityTag = null;
+		lastModified = null;
+		contentLength = -1;
+		stale = false;
+
+		partFile.delete();
+		stateFile.delete();
+	}
+
+	private void closeChannel() {
+
+		if (channel == null) {
+			return;
+		}
+
+		try {
+			channel.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		channel = null;
+	}
+
+	private static HttpResponseMessage createFailureMessage(IOException exception) {
+
+		HttpResponseMessage responseMessage = new HttpResponseMessage(-1, exception.getMessage(), null, new ArrayList<HttpHeader>());
+		ErrorResponse error = new ErrorResponse();
+
+		error.setMessage(exception.getClass().getSimpleName() + ": " + exception.getMessage());
+		error.setException(exception);
+
+		responseMessage.setError(error);
+
+		return responseMessage;
+	}
+
+	private static String getHeader(HttpResponseMessage response, String name) {
+
+		if (response.getHeaders() == null) {
+			return null;
+		}
+
+		for (HttpHeader header : response.getHeaders()) {
+			if (name.equalsIgnoreCase(header.getName())) {
+				return header.getValue();
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Parses a Content-Range header, such as bytes 0-99/1000.
+	 *
+	 * @param contentRange The header value.
+	 *
+	 * @return Returns the first byte, the last byte and the length, which is -1 if it is unknown, or null if the header
+	 * cannot be parsed.
+	 */
+	private static long[] parseContentRange(String contentRange) {
+
+		if (contentRange == null || !contentRange.startsWith("bytes ")) {
+			return null;
+		}
+
+		int dash = contentRange.indexOf('-');
+		int slash = contentRange.indexOf('/');
+
+		if (dash < 0 || slash < dash) {
+			return null;
+		}
+
+		try {
+			long first = Long.parseLong(contentRange.substring("bytes ".length(), dash).trim());
+			long last = Long.parseLong(contentRange.substring(dash + 1, slash).trim());
+			String length = contentRange.substring(slash + 1).trim();
+
+			return new long[]{first, last, "*".equals(length) ? -1 : Long.parseLong(length)};
+		} catch (NumberFormatException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * A range of the file which is downloaded by its own request.
+	 */
+	private final class Segment {
+
+		private final long start;
+		private ByteBuffer buffer;
+		private HttpCall call;
+		private volatile boolean complete;
+		private volatile long end;
+		private volatile long position;
+		private int resumeAttempts;
+		private long savedPosition;
+
+		private Segment(long start, long end) {
+			this.start = start;
+			this.end = end;
+			this.position = start;
+		}
+
+		private boolean isComplete() {
+			return complete || end >= 0 && position > end;
+		}
+
+		/**
+		 * Requests the rest of the segment.
+		 */
+		private void execute() {
+
+			HttpRequestMessage requestMessage = new HttpRequestMessage(url, RequestType.GET);
+
+			for (HttpHeader header : headers) {
+				requestMessage.addHeader(header);
+			}
+
+			if (position > 0 || end >= 0 || segmentCount > 1) {
+
+				String validator = entityTag != null ? entityTag : lastModified;
+
+				requestMessage.addHeader(new HttpHeader("Range", "bytes=" + position + "-" + (end >= 0 ? String.valueOf(end) : "")));
+
+				if (validator != null) {
+					requestMessage.addHeader(new HttpHeader("If-Range", validator));
+				}
+			}
+
+			requestMessage.setPriority(priority);
+			requestMessage.setDeadline(0, TimeUnit.MILLISECONDS);
+
+			SegmentRequest request = new SegmentRequest(generation, position);
+
+			requestMessage.setResponseBodyHandler(request);
+
+			try {
+				call = new HttpClientService(requestMessage, request).executeRequestAsync();
+			} catch (RejectedExecutionException e) {
+				e.printStackTrace();
+				fail(createFailureMessage(new IOException("The request was rejected by the dispatcher")));
+			}
+		}
+
+		/**
+		 * Writes the body to the segment's range of the part file, on the background thread. The request of a cancelled
+		 * download can still be writing when the segment is requested again, so one request writes at a time.
+		 *
+		 * @param request  The request.
+		 * @param response The response.
+		 * @param body     The body.
+		 *
+		 * @throws IOException
+		 */
+		private synchronized void receive(SegmentRequest request, HttpResponseMessage response, ResponseBody body)
+				throws IOException {
+
+			if (generation != request.generation) {
+				throw new InterruptedIOException("The download was cancelled");
+			}
+
+			boolean partial = response.getStatusCode() == HttpStatus.SC_PARTIAL_CONTENT;
+
+			if (partial) {
+
+				long[] range = parseContentRange(getHeader(response, "Content-Range"));
+
+				if (range == null || range[0] != position) {
+					throw new IOException("Unexpected Content-Range: " + getHeader(response, "Content-Range"));
+				}
+
+				if (range[2] >= 0) {
+					contentLength = range[2];
+				}
+			} else if (start > 0 || segments.size() > 1) {
+				stale = true;
+				throw new IOException("The file has changed on the server");
+			} else {
+				position = 0;
+				channel.truncate(0);
+				contentLength = body.getContentLength();
+			}
+
+			if (!partial || entityTag == null && lastModified == null) {
+
+				String responseEntityTag = getHeader(response, "ETag");
+
+				entityTag = responseEntityTag == null || responseEntityTag.startsWith("W/") ? null : responseEntityTag;
+				lastModified = getHeader(response, "Last-Modified");
+			}
+
+			if (partial && start == 0 && position == 0 && segmentCount > 1 && segments.size() == 1
+					&& contentLength >= 2 * MIN_SEGMENT_SIZE) {
+				split(request.generation);
+			}
+
+			if (end < 0 && contentLength >= 0) {
+				end = contentLength - 1;
+			}
+
+			ReadableByteChannel source = body.channel();
+
+			if (buffer == null) {
+				buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			}
+
+			while (!isComplete()) {
+
+				if (generation != request.generation) {
+					throw new InterruptedIOException("The download was cancelled");
+				}
+
+				buffer.clear();
+
+				if (end >= 0 && end - position + 1 < buffer.capacity()) {
+					buffer.limit((int) (end - position + 1));
+				}
+
+				if (source.read(buffer) == -1) {
+					break;
+				}
+
+				buffer.flip();
+
+				while (buffer.hasRemaining()) {
+					position += channel.write(buffer, position);
+				}
+
+				postProgress();
+
+				if (position - savedPosition >= STATE_INTERVAL) {
+					savedPosition = position;
+					scheduleStateSave();
+				}
+			}
+
+			if (end < 0) {
+				end = position - 1;
+				complete = true;
+			} else if (!isComplete()) {
+				throw new EOFException("The connection closed before the segment was downloaded");
+			} else if (partial) {
+				// Reads the end of the body, so the connection is returned to the pool rather than aborted.
+				buffer.clear();
+				buffer.limit(1);
+				source.read(buffer);
+			}
+
+			scheduleStateSave();
+		}
+
+		/**
+		 * Splits the rest of the file into segments once its length is known, on the background thread.
+		 *
+		 * @param splitGeneration The generation of the request which learned the length.
+		 */
+		private void split(final int splitGeneration) {
+
+			int count = (int) Math.min(segmentCount, contentLength / MIN_SEGMENT_SIZE);
+			long size = contentLength / count;
+			final List<Segment> added = new ArrayList<>(count - 1);
+
+			for (int i = 1; i < count; i++) {
+				added.add(new Segment(i * size, i == count - 1 ? contentLength - 1 : (i + 1) * size - 1));
+			}
+
+			end = size - 1;
+			segments.addAll(added);
+			scheduleStateSave();
+
+			mainHandler.post(new Runnable() {
+
+				@Override
+				public void run() {
+
+					if (generation != splitGeneration) {
+						return;
+					}
+
+					for (Segment segment : added) {
+						segment.execute();
+					}
+				}
+			});
+		}
+
+		private void completed(SegmentRequest request, HttpResponseMessage response) {
+
+			if (generation != request.generation) {
+				return;
+			}
+
+			int statusCode = response.getStatusCode();
+
+			if (statusCode != HttpStatus.SC_OK && statusCode != HttpStatus.SC_PARTIAL_CONTENT) {
+				fail(response);
+			} else if (isComplete()) {
+				completeIfDone();
+			} else {
+				resume(request, response);
+			}
+		}
+
+		/**
+		 * Requests the rest of the segment again after an interruption, unless it keeps failing without progress.
+		 *
+		 * @param request  The interrupted request.
+		 * @param response The response of the interrupted request.
+		 */
+		private void resume(SegmentRequest request, HttpResponseMessage response) {
+
+			if (generation != request.generation) {
+				return;
+			}
+
+			if (position > request.position) {
+				resumeAttempts = 0;
+			}
+
+			if (stale || resumeAttempts++ >= MAX_RESUME_ATTEMPTS) {
+				fail(response);
+			} else {
+				execute();
+			}
+		}
+
+		/**
+		 * A single request for the segment, which keeps the generation it was made in.
+		 */
+		private final class SegmentRequest implements ResponseBodyHandler, OnHttpResponseListener, OnHttpFailureListener {
+
+			private final int generation;
+			private final long position;
+
+			private SegmentRequest(int generation, long position) {
+				this.generation = generation;
+				this.position = position;
+			}
+
+			@Override
+			public void onResponseBody(HttpResponseMessage response, ResponseBody body) throws IOException {
+
+				int statusCode = response.getStatusCode();
+
+				if (statusCode != HttpStatus.SC_OK && statusCode != HttpStatus.SC_PARTIAL_CONTENT) {
+					return;
+				}
+
+				receive(this, response, body);
+			}
+
+			@Override
+			public void onGetCompleted(HttpResponseMessage response) {
+				completed(this, response);
+			}
+
+			@Override
+			public void onPostCompleted(HttpResponseMessage response) {
+				completed(this, response);
+			}
+
+			@Override
+			public void onPutCompleted(HttpResponseMessage response) {
+				completed(this, response);
+			}
+
+			@Override
+			public void onDeleteCompleted(HttpResponseMessage response) {
+				completed(this, response);
+			}
+
+			@Override
+			public void onClientError(HttpResponseMessage response) {
+				if (FileDownload.this.generation == generation) {
+					fail(response);
+				}
+			}
+
+			@Override
+			public void onServerError(HttpResponseMessage response) {
+				resume(this, response);
+			}
+
+			@Override
+			public void onRequestFailed(HttpResponseMessage response) {
+				resume(this, response);
+			}
+		}
+	}
+}
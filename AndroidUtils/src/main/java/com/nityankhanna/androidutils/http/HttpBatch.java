@@ -0,0 +1,760 @@
+package com.nityankhanna.androidutils.http;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Executes many small requests as a group.
+ * <p/>
+ * By default the requests are executed individually, with at most a fixed number of them in flight at once, so a large
+ * batch does not fill the queue of the HttpDispatcher. When a batch URL is set, the requests are instead packed into a
+ * single multipart/mixed POST request, one application/http part per request, and the parts of the multipart/mixed
+ * response are delivered to the listeners of the requests in the order of their Content-ID headers.
+ * <p/>
+ * Each request's listener is notified as its response arrives, and the batch listener once every request has
+ * completed. All listeners are called on the main thread, and the batch must be executed from the main thread.
+ */
+public final class HttpBatch {
+
+	private static final String CHARSET = "ISO-8859-1";
+	private static final String CRLF = "\r\n";
+	private static final String CONTENT_ID_PREFIX = "<item-";
+
+	private final List<Item> items = new ArrayList<>();
+	private String batchUrl;
+	private HttpCall batchCall;
+	private boolean cancelled;
+	private int completedCount;
+	private OnBatchCompletedListener listener;
+	private int maxConcurrentRequests = 4;
+	private int nextItem = -1;
+
+	/**
+	 * Initializes a new instance of the HttpBatch class.
+	 */
+	public HttpBatch() {
+	}
+
+	/**
+	 * Adds a request to the batch.
+	 *
+	 * @param requestMessage The request message.
+	 * @param listener       The listener of the request, or null if only the batch listener is used.
+	 *
+	 * @throws IllegalArgumentException If the URL of the request is not valid.
+	 */
+	public void add(HttpRequestMessage requestMessage, OnHttpResponseListener listener) {
+
+		if (nextItem >= 0) {
+			throw new IllegalStateException("The batch has already been executed");
+		}
+
+		items.add(new Item(requestMessage, listener));
+	}
+
+	/**
+	 * Gets the number of requests in the batch.
+	 *
+	 * @return Returns the number of requests.
+	 */
+	public int size() {
+		return items.size();
+	}
+
+	/**
+	 * Gets the URL the requests are packed and sent to.
+	 *
+	 * @return Returns the batch URL, or null if the requests are executed individually.
+	 */
+	public String getBatchUrl() {
+		return batchUrl;
+	}
+
+	/**
+	 * Sets the URL of a server endpoint which accepts multipart/mixed batch requests, such as /batch.
+	 *
+	 * @param batchUrl The batch URL, or null to execute the requests individually.
+	 */
+	public void setBatchUrl(String batchUrl) {
+		this.batchUrl = batchUrl;
+	}
+
+	/**
+	 * Gets the maximum number of requests executed at once when they are executed individually.
+	 *
+	 * @return Returns the maximum number of concurrent requests.
+	 */
+	public int getMaxConcurrentRequests() {
+		return maxConcurrentRequests;
+	}
+
+	/**
+	 * Sets the maximum number of requests executed at once when they are executed individually.
+	 *
+	 * @param maxConcurrentRequests The maximum number of concurrent requests.
+	 */
+	public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+
+		if (maxConcurrentRequests < 1) {
+			throw new IllegalArgumentException("The maximum number of concurrent requests must be at least 1");
+		}
+
+		this.maxConcurrentRequests = maxConcurrentRequests;
+	}
+
+	/**
+	 * Executes the requests of the batch.
+	 *
+	 * @param listener The listener which receives every response once the batch has completed, or null.
+	 */
+	public void execute(OnBatchCompletedListener listener) {
+
+		if (nextItem >= 0) {
+			throw new IllegalStateException("The batch has already been executed");
+		}
+
+		this.listener = listener;
+		nextItem = 0;
+
+		if (items.isEmpty()) {
+			completeBatch();
+		} else if (batchUrl != null) {
+			executeBatchRequest();
+		} else {
+			executeNext();
+		}
+	}
+
+	/**
+	 * Cancels every request of the batch which has not completed yet. No listener is notified afterwards.
+	 */
+	public void cancel() {
+
+		cancelled = true;
+
+		if (batchCall != null) {
+			batchCall.cancel();
+		}
+
+		for (Item item : items) {
+			if (item.call != null) {
+				item.call.cancel();
+			}
+		}
+	}
+
+	/**
+	 * Starts requests until the maximum number of concurrent requests are in flight.
+	 */
+	private void executeNext() {
+
+		while (!cancelled && nextItem < items.size() && nextItem - completedCount < maxConcurrentRequests) {
+
+			Item item = items.get(nextItem++);
+
+			try {
+				item.call = item.service.executeRequestAsync();
+			} catch (RejectedExecutionException e) {
+				e.printStackTrace();
+				item.service.dispatchResponse(createFailureMessage(item.requestMessage,
+						new IOException("The request was rejected by the dispatcher")));
+			}
+		}
+	}
+
+	/**
+	 * Packs every request into a single multipart/mixed request to the batch URL.
+	 */
+	private void executeBatchRequest() {
+
+		String boundary = "batch_" + UUID.randomUUID().toString();
+
+		HttpRequestMessage batchMessage = new HttpRequestMessage(batchUrl, RequestType.POST);
+		RequestPriority priority = RequestPriority.PREFETCH;
+
+		for (Item item : items) {
+			if (item.requestMessage.getPriority().ordinal() < priority.ordinal()) {
+				priority = item.requestMessage.getPriority();
+			}
+		}
+
+		BatchResponseHandler responseHandler = new BatchResponseHandler();
+
+		batchMessage.setPriority(priority);
+		batchMessage.setEntity(new BatchEntity(items, boundary));
+		batchMessage.setResponseBodyHandler(responseHandler);
+
+		HttpClientService service = new HttpClientService(batchMessage, new BatchResponseListener(responseHandler));
+
+		nextItem = items.size();
+
+		try {
+			batchCall = service.executeRequestAsync();
+		} catch (RejectedExecutionException e) {
+			e.printStackTrace();
+			failBatch(new IOException("The request was rejected by the dispatcher"));
+		}
+	}
+
+	/**
+	 * Delivers the same failure to every request of the batch.
+	 *
+	 * @param exception The exception which caused the failure.
+	 */
+	private void failBatch(IOException exception) {
+
+		for (Item item : items) {
+			item.service.dispatchResponse(createFailureMessage(item.requestMessage, exception));
+		}
+	}
+
+	/**
+	 * Notifies the batch listener once every request has completed.
+	 */
+	private void completeBatch() {
+
+		if (cancelled || listener == null) {
+			return;
+		}
+
+		List<HttpResponseMessage> responses = new ArrayList<>(items.size());
+
+		for (Item item : items) {
+			responses.add(item.response);
+		}
+
+		listener.onBatchCompleted(Collections.unmodifiableList(responses));
+	}
+
+	private static HttpResponseMessage createFailureMessage(HttpRequestMessage requestMessage, IOException exception) {
+
+		HttpResponseMessage responseMessage = new HttpResponseMessage(-1, exception.getMessage(), null, new ArrayList<HttpHeader>());
+		ErrorResponse error = new ErrorResponse();
+
+		error.setMessage(exception.getClass().getSimpleName() + ": " + exception.getMessage());
+		error.setException(exception);
+
+		responseMessage.setError(error);
+		responseMessage.setRequestMessage(requestMessage);
+
+		return responseMessage;
+	}
+
+	/**
+	 * Parses the parts of a multipart/mixed response into a response message per part, ordered by Content-ID.
+	 *
+	 * @param body  The body of the response.
+	 * @param count The number of requests in the batch.
+	 *
+	 * @return Returns the response messages, with null entries for requests the response did not contain.
+	 *
+	 * @throws IOException If the body is not a multipart response.
+	 */
+	private static HttpResponseMessage[] parseBatchResponse(ResponseBody body, int count) throws IOException {
+
+		String contentType = body.getContentType();
+		int boundaryIndex = contentType == null ? -1 : contentType.indexOf("boundary=");
+
+		if (boundaryIndex < 0) {
+			throw new IOException("The batch response is not a multipart response: " + contentType);
+		}
+
+		String boundary = contentType.substring(boundaryIndex + "boundary=".length());
+
+		if (boundary.indexOf(';') >= 0) {
+			boundary = boundary.substring(0, boundary.indexOf(';'));
+		}
+
+		boundary = "--" + boundary.replace("\"", "").trim();
+
+		// ISO-8859-1 maps every byte to one char, so the indices of the text are the offsets of the bytes.
+		byte[] bytes = body.toByteArray();
+		String text = new String(bytes, CHARSET);
+		HttpResponseMessage[] responses = new HttpResponseMessage[count];
+
+		int partIndex = 0;
+		int position = text.indexOf(boundary);
+
+		while (position >= 0) {
+
+			int partStart = position + boundary.length();
+
+			if (text.startsWith("--", partStart)) {
+				break;
+			}
+
+			int partEnd = text.indexOf(CRLF + boundary, partStart);
+
+			if (partEnd < 0) {
+				break;
+			}
+
+			int index = partIndex++;
+			int headersEnd = text.indexOf(CRLF + CRLF, partStart);
+
+			if (headersEnd < 0 || headersEnd > partEnd) {
+				position = partEnd + CRLF.length();
+				continue;
+			}
+
+			for (String partHeader : text.substring(partStart, headersEnd).split(CRLF)) {
+
+				int contentIdIndex = partHeader.indexOf(CONTENT_ID_PREFIX);
+
+				if (partHeader.toLowerCase(Locale.US).startsWith("content-id:") && contentIdIndex >= 0) {
+					try {
+						index = Integer.parseInt(partHeader.substring(contentIdIndex + CONTENT_ID_PREFIX.length(), partHeader.indexOf('>', contentIdIndex)));
+					} catch (RuntimeException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+
+			if (index >= 0 && index < count) {
+				responses[index] = parseResponse(bytes, text, headersEnd + 2 * CRLF.length(), partEnd);
+			}
+
+			position = partEnd + CRLF.length();
+		}
+
+		return responses;
+	}
+
+	/**
+	 * Parses the application/http response of a part.
+	 *
+	 * @param bytes The bytes of the multipart body.
+	 * @param text  The multipart body decoded as ISO-8859-1.
+	 * @param start The offset at which the response starts.
+	 * @param end   The offset at which the part ends.
+	 *
+	 * @return Returns the response message, or null if the part is not a response.
+	 */
+	private static HttpResponseMessage parseResponse(byte[] bytes, String text, int start, int end) {
+
+		int statusLineEnd = text.indexOf(CRLF, start);
+
+		if (statusLineEnd < 0 || statusLineEnd > end) {
+			statusLineEnd = end;
+		}
+
+		String[] statusLine = text.substring(start, statusLineEnd).split(" ", 3);
+
+		if (statusLine.length < 2 || !statusLine[0].startsWith("HTTP/")) {
+			return null;
+		}
+
+		int statusCode;
+
+		try {
+			statusCode = Integer.parseInt(statusLine[1]);
+		} catch (NumberFormatException e) {
+			e.printStackTrace();
+			return null;
+		}
+
+		List<HttpHeader> headers = new ArrayList<>();
+		int headerStart = statusLineEnd + CRLF.length();
+		int bodyStart = end;
+
+		while (headerStart < end) {
+
+			int headerEnd = text.indexOf(CRLF, headerStart);
+
+			if (headerEnd < 0 || headerEnd > end) {
+				headerEnd = end;
+			}
+
+			if (headerEnd == headerStart) {
+				bodyStart = headerEnd + CRLF.length();
+				break;
+			}
+
+			String header = text.substring(headerStart, headerEnd);
+			int separator = header.indexOf(':');
+
+			if (separator > 0) {
+				headers.add(new HttpHeader(header.substring(0, separator).trim(), header.substring(separator + 1).trim()));
+			}
+
+			headerStart = headerEnd + CRLF.length();
+		}
+
+		byte[] entityBytes = new byte[Math.max(0, end - bodyStart)];
+		System.arraycopy(bytes, Math.min(bodyStart, end), entityBytes, 0, entityBytes.length);
+
+		ByteArrayEntity entity = new ByteArrayEntity(entityBytes);
+		HttpResponseMessage responseMessage = new HttpResponseMessage(statusCode, statusLine.length > 2 ? statusLine[2] : "", entity, headers);
+
+		for (HttpHeader header : headers) {
+
+			if ("Content-Type".equalsIgnoreCase(header.getName())) {
+
+				entity.setContentType(header.getValue());
+
+				if (header.getValue().contains("application/json")) {
+					responseMessage.setContentType(ContentType.JSON);
+				}
+			}
+		}
+
+		return responseMessage;
+	}
+
+	/**
+	 * A request of the batch, which records its response before passing it on to its own listener.
+	 */
+	private final class Item implements OnHttpResponseListener, OnHttpFailureListener {
+
+		private final OnHttpResponseListener listener;
+		private final HttpRequestMessage requestMessage;
+		private final HttpClientService service;
+		private HttpCall call;
+		private HttpResponseMessage response;
+
+		private Item(HttpRequestMessage requestMessage, OnHttpResponseListener listener) {
+			this.requestMessage = requestMessage;
+			this.listener = listener;
+			this.service = new HttpClientService(requestMessage, this);
+		}
+
+		@Override
+		public void onGetCompleted(HttpResponseMessage response) {
+
+			if (!cancelled && listener != null) {
+				listener.onGetCompleted(response);
+			}
+
+			complete(response);
+		}
+
+		@Override
+		public void onPostCompleted(HttpResponseMessage response) {
+
+			if (!cancelled && listener != null) {
+				listener.onPostCompleted(response);
+			}
+
+			complete(response);
+		}
+
+		@Override
+		public void onPutCompleted(HttpResponseMessage response) {
+
+			if (!cancelled && listener != null) {
+				listener.onPutCompleted(response);
+			}
+
+			complete(response);
+		}
+
+		@Override
+		public void onDeleteCompleted(HttpResponseMessage response) {
+
+			if (!cancelled && listener != null) {
+				listener.onDeleteCompleted(response);
+			}
+
+			complete(response);
+		}
+
+		@Override
+		public void onClientError(HttpResponseMessage response) {
+
+			if (!cancelled && listener != null) {
+				listener.onClientError(response);
+			}
+
+			complete(response);
+		}
+
+		@Override
+		public void onServerError(HttpResponseMessage response) {
+
+			if (!cancelled && listener != null) {
+				listener.onServerError(response);
+			}
+
+			complete(response);
+		}
+
+		@Override
+		public void onRequestFailed(HttpResponseMessage response) {
+
+			if (!cancelled && listener instanceof OnHttpFailureListener) {
+				((OnHttpFailureListener) listener).onRequestFailed(response);
+			} else if (!cancelled && listener != null) {
+				listener.onClientError(response);
+			}
+
+			complete(response);
+		}
+
+		private void complete(HttpResponseMessage response) {
+
+			if (cancelled || this.response != null) {
+				return;
+			}
+
+			this.response = response;
+			completedCount++;
+
+			if (completedCount == items.size()) {
+				completeBatch();
+			} else if (batchUrl == null) {
+				executeNext();
+			}
+		}
+
+		/**
+		 * Writes the request as an application/http part.
+		 *
+		 * @param outputStream The output stream of the multipart body.
+		 * @param index        The index of the request in the batch.
+		 *
+		 * @throws IOException
+		 */
+		private void writePart(OutputStream outputStream, int index) throws IOException {
+
+			URI uri = URI.create(requestMessage.getUrl());
+			String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+
+			if (uri.getRawQuery() != null) {
+				path += "?" + uri.getRawQuery();
+			}
+
+			StringBuilder builder = new StringBuilder();
+
+			builder.append("Content-Type: application/http").append(CRLF);
+			builder.append("Content-ID: ").append(CONTENT_ID_PREFIX).append(index).append('>').append(CRLF);
+			builder.append(CRLF);
+			builder.append(requestMessage.getRequestType().name()).append(' ').append(path).append(" HTTP/1.1").append(CRLF);
+			builder.append("Host: ").append(uri.getRawAuthority()).append(CRLF);
+
+			for (Header header : service.getRequestHeaders()) {
+				builder.append(header.getName()).append(": ").append(header.getValue()).append(CRLF);
+			}
+
+			byte[] entityBytes = null;
+
+			if (requestMessage.getRequestType() == RequestType.POST || requestMessage.getRequestType() == RequestType.PUT) {
+
+				HttpEntity entity = service.createEntity();
+				ByteArrayOutputStream entityStream = new ByteArrayOutputStream();
+
+				entity.writeTo(entityStream);
+				entityBytes = entityStream.toByteArray();
+
+				if (entity.getContentType() != null) {
+					builder.append("Content-Type: ").append(entity.getContentType().getValue()).append(CRLF);
+				}
+
+				builder.append("Content-Length: ").append(entityBytes.length).append(CRLF);
+			}
+
+			builder.append(CRLF);
+			outputStream.write(builder.toString().getBytes(CHARSET));
+
+			if (entityBytes != null) {
+				outputStream.write(entityBytes);
+			}
+		}
+	}
+
+	/**
+	 * The multipart/mixed body of a batch request, which writes the parts as the request is sent.
+	 */
+	private static final class BatchEntity extends AbstractHttpEntity {
+
+		private final String boundary;
+		private final List<Item> items;
+
+		private BatchEntity(List<Item> items, String boundary) {
+			this.items = items;
+			this.boundary = boundary;
+
+			setContentType("multipart/mixed; boundary=" + boundary);
+			setChunked(true);
+		}
+
+		@Override
+		public boolean isRepeatable() {
+
+			for (Item item : items) {
+
+				HttpEntity entity = item.requestMessage.getEntity();
+
+				if (entity != null && !entity.isRepeatable()) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		@Override
+		public long getContentLength() {
+			return -1;
+		}
+
+		@Override
+		public InputStream getContent() throws IOException {
+
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			writeTo(outputStream);
+
+			return new ByteArrayInputStream(outputStream.toByteArray());
+		}
+
+		@Override
+		public void writeTo(OutputStream outputStream) throws IOException {
+
+			if (outputStream == null) {
+				throw new IllegalArgumentException("Output stream may not be null");
+			}
+
+			for (int i = 0; i < items.size(); i++) {
+				outputStream.write(("--" + boundary + CRLF).getBytes(CHARSET));
+				items.get(i).writePart(outputStream, i);
+				outputStream.write(CRLF.getBytes(CHARSET));
+			}
+
+			outputStream.write(("--" + boundary + "--" + CRLF).getBytes(CHARSET));
+			outputStream.flush();
+		}
+
+		@Override
+		public boolean isStreaming() {
+			return false;
+		}
+	}
+
+	/**
+	 * Parses the multipart response of a batch request on the background thread.
+	 */
+	private final class BatchResponseHandler implements ResponseBodyHandler {
+
+		private volatile IOException exception;
+		private volatile HttpResponseMessage[] responses;
+
+		@Override
+		public void onResponseBody(HttpResponseMessage response, ResponseBody body) throws IOException {
+
+			if (response.getStatusCode() >= 300) {
+				return;
+			}
+
+			try {
+				responses = parseBatchResponse(body, items.size());
+			} catch (IOException e) {
+				exception = e;
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Delivers the parts of a batch response to the requests of the batch.
+	 */
+	private final class BatchResponseListener implements OnHttpResponseListener, OnHttpFailureListener {
+
+		private final BatchResponseHandler responseHandler;
+
+		private BatchResponseListener(BatchResponseHandler responseHandler) {
+			this.responseHandler = responseHandler;
+		}
+
+		@Override
+		public void onGetCompleted(HttpResponseMessage response) {
+			deliverParts();
+		}
+
+		@Override
+		public void onPostCompleted(HttpResponseMessage response) {
+			deliverParts();
+		}
+
+		@Override
+		public void onPutCompleted(HttpResponseMessage response) {
+			deliverParts();
+		}
+
+		@Override
+		public void onDeleteCompleted(HttpResponseMessage response) {
+			deliverParts();
+		}
+
+		@Override
+		public void onClientError(HttpResponseMessage response) {
+			deliverStatus(response);
+		}
+
+		@Override
+		public void onServerError(HttpResponseMessage response) {
+			deliverStatus(response);
+		}
+
+		@Override
+		public void onRequestFailed(HttpResponseMessage response) {
+
+			Exception exception = response.getError().getException();
+
+			failBatch(exception instanceof IOException ? (IOException) exception : new IOException(exception.getMessage()));
+		}
+
+		private void deliverParts() {
+
+			HttpResponseMessage[] responses = responseHandler.responses;
+
+			if (responses == null) {
+				failBatch(responseHandler.exception != null ? responseHandler.exception : new IOException("The batch response could not be read"));
+				return;
+			}
+
+			for (int i = 0; i < items.size(); i++) {
+
+				Item item = items.get(i);
+
+				if (responses[i] == null) {
+					item.service.dispatchResponse(createFailureMessage(item.requestMessage,
+							new IOException("The batch response did not contain the request")));
+				} else {
+					responses[i].setRequestMessage(item.requestMessage);
+					item.service.dispatchResponse(responses[i]);
+				}
+			}
+		}
+
+		/**
+		 * Delivers the error status of the batch request to every request of the batch.
+		 *
+		 * @param response The response of the batch request.
+		 */
+		private void deliverStatus(HttpResponseMessage response) {
+
+			for (Item item : items) {
+
+				HttpResponseMessage responseMessage = new HttpResponseMessage(response.getStatusCode(), response.getReasonPhrase(), null,
+						response.getHeaders() == null ? null : new ArrayList<>(response.getHeaders()));
+
+				responseMessage.setRequestMessage(item.requestMessage);
+				item.service.dispatchResponse(responseMessage);
+			}
+		}
+	}
+}
@@ -0,0 +1,373 @@
+package com.nityankhanna.androidutils.http;
+
+import android.util.LruCache;
+
+import com.nityankhanna.androidutils.StringUtils;
+
+import org.apache.http.HttpResponse;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A memory and disk cache of GET responses.
+ * <p/>
+ * Responses are stored according to their Cache-Control and Expires headers and revalidated with If-None-Match and
+ * If-Modified-Since once they are stale. Both the memory and the disk cache evict the least recently used responses
+ * once they exceed their size in bytes.
+ */
+public final class HttpCache {
+
+	private static final String ENTRY_SUFFIX = ".entry";
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private static HttpCache installedInstance;
+
+	private final AtomicInteger hitCount = new AtomicInteger();
+	private final AtomicInteger missCount = new AtomicInteger();
+	private final AtomicInteger revalidateCount = new AtomicInteger();
+	private final AtomicInteger requestCount = new AtomicInteger();
+	private final File directory;
+	private final long maxDiskSize;
+	private final LinkedHashMap<String, Long> diskEntries = new LinkedHashMap<>(16, 0.75f, true);
+	private final LruCache<String, HttpCacheEntry> memoryCache;
+	private long diskSize;
+
+	private HttpCache(File directory, long maxDiskSize, int maxMemorySize) {
+		this.directory = directory;
+		this.maxDiskSize = maxDiskSize;
+
+		memoryCache = new LruCache<String, HttpCacheEntry>(maxMemorySize) {
+
+			@Override
+			protected int sizeOf(String key, HttpCacheEntry entry) {
+				return entry.getSize();
+			}
+		};
+
+		if (directory != null) {
+			loadDiskEntries();
+		}
+	}
+
+	/**
+	 * Installs a cache used by every HttpClientService.
+	 *
+	 * @param directory     The directory to store responses in, or null to only cache in memory.
+	 * @param maxDiskSize   The maximum size of the disk cache in bytes.
+	 * @param maxMemorySize The maximum size of the memory cache in bytes.
+	 *
+	 * @return Returns the installed cache.
+	 */
+	public static HttpCache install(File directory, long maxDiskSize, int maxMemorySize) {
+
+		synchronized (HttpCache.class) {
+			installedInstance = new HttpCache(directory, maxDiskSize, maxMemorySize);
+			return installedInstance;
+		}
+	}
+
+	/**
+	 * Gets the installed cache.
+	 *
+	 * @return Returns the installed cache, or null if no cache is installed.
+	 */
+	public static HttpCache getInstalled() {
+
+		synchronized (HttpCache.class) {
+			return installedInstance;
+		}
+	}
+
+	/**
+	 * Uninstalls the cache. The stored responses are kept on disk.
+	 */
+	public static void uninstall() {
+
+		synchronized (HttpCache.class) {
+			installedInstance = null;
+		}
+	}
+
+	/**
+	 * Gets the number of requests served from the cache without contacting the server.
+	 *
+	 * @return Returns the hit count.
+	 */
+	public int getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Gets the number of requests which were not in the cache, or whose cached response had changed.
+	 *
+	 * @return Returns the miss count.
+	 */
+	public int getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Gets the number of requests served from the cache after the server answered 304 Not Modified.
+	 *
+	 * @return Returns the revalidate count.
+	 */
+	public int getRevalidateCount() {
+		return revalidateCount.get();
+	}
+
+	/**
+	 * Gets the number of requests which consulted the cache.
+	 *
+	 * @return Returns the request count.
+	 */
+	public int getRequestCount() {
+		return requestCount.get();
+	}
+
+	/**
+	 * Gets the size of the responses stored on disk.
+	 *
+	 * @return Returns the size of the disk cache in bytes.
+	 */
+	public synchronized long getDiskSize() {
+		return diskSize;
+	}
+
+	/**
+	 * Removes the cached response for a url.
+	 *
+	 * @param url The url.
+	 */
+	public void remove(String url) {
+
+		String key = keyFor(url);
+
+		memoryCache.remove(key);
+
+		synchronized (this) {
+			removeDiskEntry(key);
+		}
+	}
+
+	/**
+	 * Removes every cached response.
+	 */
+	public void evictAll() {
+
+		memoryCache.evictAll();
+
+		synchronized (this) {
+			for (String key : Arrays.asList(diskEntries.keySet().toArray(new String[diskEntries.size()]))) {
+				removeDiskEntry(key);
+			}
+		}
+	}
+
+	HttpCacheEntry get(String url) {
+
+		requestCount.incrementAndGet();
+
+		String key = keyFor(url);
+		HttpCacheEntry entry = memoryCache.get(key);
+
+		if (entry == null) {
+			entry = readDiskEntry(key);
+
+			if (entry != null && !entry.getUrl().equals(url)) {
+				entry = null;
+			}
+
+			if (entry != null) {
+				memoryCache.put(key, entry);
+			}
+		}
+
+		return entry;
+	}
+
+	void put(String url, HttpResponse response, byte[] body) {
+
+		HttpCacheEntry entry = new HttpCacheEntry(url, response.getStatusLine().getStatusCode(),
+				response.getStatusLine().getReasonPhrase(), HttpHeader.fromHeaders(response.getAllHeaders()), body,
+				System.currentTimeMillis());
+
+		store(keyFor(url), entry);
+	}
+
+	void update(HttpCacheEntry entry) {
+		store(keyFor(entry.getUrl()), entry);
+	}
+
+	void trackHit() {
+		hitCount.incrementAndGet();
+	}
+
+	void trackMiss() {
+		missCount.incrementAndGet();
+	}
+
+	void trackRevalidate() {
+		revalidateCount.incrementAndGet();
+	}
+
+	private void store(String key, HttpCacheEntry entry) {
+
+		memoryCache.put(key, entry);
+
+		if (directory != null) {
+			writeDiskEntry(key, entry);
+		}
+	}
+
+	private synchronized void loadDiskEntries() {
+
+		if (!directory.exists() && !directory.mkdirs()) {
+			return;
+		}
+
+		File[] files = directory.listFiles();
+
+		if (files == null) {
+			return;
+		}
+
+		Arrays.sort(files, new Comparator<File>() {
+
+			@Override
+			public int compare(File lhs, File rhs) {
+				return lhs.lastModified() < rhs.lastModified() ? -1 : (lhs.lastModified() == rhs.lastModified() ? 0 : 1);
+			}
+		});
+
+		for (File file : files) {
+
+			String name = file.getName();
+
+			if (name.endsWith(ENTRY_SUFFIX)) {
+				diskEntries.put(name.substring(0, name.length() - ENTRY_SUFFIX.length()), file.length());
+				diskSize += file.length();
+			} else if (name.endsWith(TEMP_SUFFIX)) {
+				file.delete();
+			}
+		}
+
+		trimDiskToSize();
+	}
+
+	private synchronized HttpCacheEntry readDiskEntry(String key) {
+
+		if (directory == null || !diskEntries.containsKey(key)) {
+			return null;
+		}
+
+		DataInputStream inputStream = null;
+
+		try {
+			inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(directory, key + ENTRY_SUFFIX))));
+			return HttpCacheEntry.readFrom(inputStream);
+		} catch (IOException e) {
+			e.printStackTrace();
+			removeDiskEntry(key);
+			return null;
+		} finally {
+			try {
+				if (inputStream != null) {
+					inputStream.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private synchronized void writeDiskEntry(String key, HttpCacheEntry entry) {
+
+		File temp = new File(directory, key + TEMP_SUFFIX);
+		File file = new File(directory, key + ENTRY_SUFFIX);
+		DataOutputStream outputStream = null;
+
+		try {
+			outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			entry.writeTo(outputStream);
+			outputStream.close();
+			outputStream = null;
+
+			removeDiskEntry(key);
+
+			if (temp.renameTo(file)) {
+				diskEntries.put(key, file.length());
+				diskSize += file.length();
+				trimDiskToSize();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if (outputStream != null) {
+					outputStream.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+			temp.delete();
+		}
+	}
+
+	private void removeDiskEntry(String key) {
+
+		Long size = diskEntries.remove(key);
+
+		if (size != null) {
+			diskSize -= size;
+			new File(directory, key + ENTRY_SUFFIX).delete();
+		}
+	}
+
+	private void trimDiskToSize() {
+
+		Iterator<Map.Entry<String, Long>> it = diskEntries.entrySet().iterator();
+
+		while (diskSize > maxDiskSize && it.hasNext()) {
+
+			Map.Entry<String, Long> eldest = it.next();
+
+			diskSize -= eldest.getValue();
+			new File(directory, eldest.getKey() + ENTRY_SUFFIX).delete();
+			it.remove();
+		}
+	}
+
+	private static String keyFor(String url) {
+
+		try {
+			MessageDigest digest = MessageDigest.getInstance("MD5");
+			byte[] hash = digest.digest(StringUtils.toByteArray(url, Encoding.UTF_8.getValue()));
+			StringBuilder key = new StringBuilder(hash.length * 2);
+
+			for (byte b : hash) {
+				key.append(Character.forDigit((b >> 4) & 0xf, 16));
+				key.append(Character.forDigit(b & 0xf, 16));
+			}
+
+			return key.toString();
+		} catch (NoSuchAlgorithmException | IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,317 @@
+package com.nityankhanna.androidutils.http;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.cookie.DateParseException;
+import org.apache.http.impl.cookie.DateUtils;
+import org.apache.http.message.BasicHttpResponse;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a cached response together with the information needed to decide if it is still fresh.
+ * <p/>
+ * Entries are shared by the threads of the HttpDispatcher, so they are immutable.
+ */
+final class HttpCacheEntry {
+
+	private static final long HEURISTIC_FRESHNESS_DIVISOR = 10;
+
+	private final String url;
+	private final int statusCode;
+	private final String reasonPhrase;
+	private final byte[] body;
+	private final List<HttpHeader> headers;
+	private final long receivedAtMillis;
+
+	HttpCacheEntry(String url, int statusCode, String reasonPhrase, List<HttpHeader> headers, byte[] body, long receivedAtMillis) {
+		this.url = url;
+		this.statusCode = statusCode;
+		this.reasonPhrase = reasonPhrase;
+		this.headers = headers;
+		this.body = body;
+		this.receivedAtMillis = receivedAtMillis;
+	}
+
+	String getUrl() {
+		return url;
+	}
+
+	byte[] getBody() {
+		return body;
+	}
+
+	String getETag() {
+		return getHeader(headers, "ETag");
+	}
+
+	String getLastModified() {
+		return getHeader(headers, "Last-Modified");
+	}
+
+	/**
+	 * Checks if the entry has a validator which can be sent in a conditional request.
+	 *
+	 * @return Returns true if the entry has an ETag or Last-Modified header.
+	 */
+	boolean canRevalidate() {
+		return getETag() != null || getLastModified() != null;
+	}
+
+	/**
+	 * Checks if the entry can be served without contacting the server.
+	 *
+	 * @param nowMillis The current time.
+	 *
+	 * @return Returns true if the entry is fresh.
+	 */
+	boolean isFresh(long nowMillis) {
+
+		String cacheControl = getHeader(headers, "Cache-Control");
+
+		if (hasDirective(cacheControl, "no-cache")) {
+			return false;
+		}
+
+		return getCurrentAgeMillis(nowMillis) < getFreshnessLifetimeMillis();
+	}
+
+	/**
+	 * Merges the headers of a 304 Not Modified response into a copy of the entry.
+	 *
+	 * @param notModifiedHeaders The headers of the 304 response.
+	 * @param nowMillis          The current time.
+	 *
+	 * @return Returns the revalidated entry.
+	 */
+	HttpCacheEntry revalidated(Header[] notModifiedHeaders, long nowMillis) {
+
+		List<HttpHeader> merged = new ArrayList<>(headers);
+
+		for (Header header : notModifiedHeaders) {
+
+			for (int i = merged.size() - 1; i >= 0; i--) {
+				if (merged.get(i).getName().equalsIgnoreCase(header.getName())) {
+					merged.remove(i);
+				}
+			}
+		}
+
+		for (Header header : notModifiedHeaders) {
+			merged.add(new HttpHeader(header.getName(), header.getValue()));
+		}
+
+		return new HttpCacheEntry(url, statusCode, reasonPhrase, merged, body, nowMillis);
+	}
+
+	/**
+	 * Gets the number of bytes the entry occupies.
+	 *
+	 * @return Returns the approximate size of the entry.
+	 */
+	int getSize() {
+
+		int size = body.length + url.length();
+
+		for (HttpHeader header : headers) {
+			size += header.getName().length() + header.getValue().length();
+		}
+
+		return size;
+	}
+
+	/**
+	 * Creates a response from the entry.
+	 *
+	 * @return Returns the response.
+	 */
+	HttpResponse toHttpResponse() {
+
+		BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, reasonPhrase);
+		ByteArrayEntity entity = new ByteArrayEntity(body);
+
+		for (HttpHeader header : headers) {
+			response.addHeader(header.getName(), header.getValue());
+		}
+
+		entity.setContentType(response.getFirstHeader("Content-Type"));
+		response.setEntity(entity);
+
+		return response;
+	}
+
+	void writeTo(DataOutputStream outputStream) throws IOException {
+
+		outputStream.writeUTF(url);
+		outputStream.writeInt(statusCode);
+		outputStream.writeUTF(reasonPhrase == null ? "" : reasonPhrase);
+		outputStream.writeLong(receivedAtMillis);
+		outputStream.writeInt(headers.size());
+
+		for (HttpHeader header : headers) {
+			outputStream.writeUTF(header.getName());
+			outputStream.writeUTF(header.getValue());
+		}
+
+		outputStream.writeInt(body.length);
+		outputStream.write(body);
+	}
+
+	static HttpCacheEntry readFrom(DataInputStream inputStream) throws IOException {
+
+		String url = inputStream.readUTF();
+		int statusCode = inputStream.readInt();
+		String reasonPhrase = inputStream.readUTF();
+		long receivedAtMillis = inputStream.readLong();
+		int headerCount = inputStream.readInt();
+		List<HttpHeader> headers = new ArrayList<>(headerCount);
+
+		for (int i = 0; i < headerCount; i++) {
+			headers.add(new HttpHeader(inputStream.readUTF(), inputStream.readUTF()));
+		}
+
+		byte[] body = new byte[inputStream.readInt()];
+		inputStream.readFully(body);
+
+		return new HttpCacheEntry(url, statusCode, reasonPhrase, headers, body, receivedAtMillis);
+	}
+
+	/**
+	 * Checks if a response may be stored in the cache.
+	 *
+	 * @param response The response.
+	 *
+	 * @return Returns true if the response is cacheable.
+	 */
+	static boolean isCacheable(HttpResponse response) {
+
+		if (response.getStatusLine().getStatusCode() != 200) {
+			return false;
+		}
+
+		Header cacheControl = response.getFirstHeader("Cache-Control");
+		Header vary = response.getFirstHeader("Vary");
+
+		if (cacheControl != null && hasDirective(cacheControl.getValue(), "no-store")) {
+			return false;
+		}
+
+		return vary == null || vary.getValue().trim().equalsIgnoreCase("Accept-Encoding");
+	}
+
+	/**
+	 * Gets the value of a Cache-Control directive.
+	 *
+	 * @param cacheControl The value of the Cache-Control header.
+	 * @param directive    The name of the directive.
+	 *
+	 * @return Returns the value in seconds, or -1 if the directive is not present.
+	 */
+	static long getDirectiveSeconds(String cacheControl, String directive) {
+
+		if (cacheControl == null) {
+			return -1;
+		}
+
+		for (String part : cacheControl.split(",")) {
+
+			String[] pair = part.trim().split("=", 2);
+
+			if (pair.length == 2 && pair[0].trim().equalsIgnoreCase(directive)) {
+				try {
+					return Long.parseLong(pair[1].trim().replace("\"", ""));
+				} catch (NumberFormatException e) {
+					return -1;
+				}
+			}
+		}
+
+		return -1;
+	}
+
+	static boolean hasDirective(String cacheControl, String directive) {
+
+		if (cacheControl == null) {
+			return false;
+		}
+
+		for (String part : cacheControl.split(",")) {
+			if (part.trim().split("=", 2)[0].trim().equalsIgnoreCase(directive)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private long getFreshnessLifetimeMillis() {
+
+		long maxAge = getDirectiveSeconds(getHeader(headers, "Cache-Control"), "max-age");
+
+		if (maxAge >= 0) {
+			return maxAge * 1000;
+		}
+
+		long date = getDateMillis("Date", receivedAtMillis);
+		long expires = getDateMillis("Expires", -1);
+
+		if (expires != -1) {
+			return Math.max(0, expires - date);
+		}
+
+		long lastModified = getDateMillis("Last-Modified", -1);
+
+		if (lastModified != -1 && lastModified < date) {
+			return (date - lastModified) / HEURISTIC_FRESHNESS_DIVISOR;
+		}
+
+		return 0;
+	}
+
+	private long getCurrentAgeMillis(long nowMillis) {
+
+		long ageSeconds = 0;
+		String age = getHeader(headers, "Age");
+
+		if (age != null) {
+			try {
+				ageSeconds = Long.parseLong(age.trim());
+			} catch (NumberFormatException ignored) {
+			}
+		}
+
+		return ageSeconds * 1000 + Math.max(0, nowMillis - receivedAtMillis);
+	}
+
+	private long getDateMillis(String name, long defaultValue) {
+
+		String value = getHeader(headers, name);
+
+		if (value == null) {
+			return defaultValue;
+		}
+
+		try {
+			return DateUtils.parseDate(value).getTime();
+		} catch (DateParseException e) {
+			return defaultValue;
+		}
+	}
+
+	private static String getHeader(List<HttpHeader> headers, String name) {
+
+		for (HttpHeader header : headers) {
+			if (header.getName().equalsIgnoreCase(name)) {
+				return header.getValue();
+			}
+		}
+
+		return null;
+	}
+}
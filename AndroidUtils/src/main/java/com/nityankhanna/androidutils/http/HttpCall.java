@@ -0,0 +1,165 @@
+package com.nityankhanna.androidutils.http;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Represents a request which has been executed by an HttpClientService.
+ * <p/>
+ * Cancelling a call aborts its connection, unless an identical GET request is still waiting for the shared response,
+ * and the response listener is not notified. The get methods block until the response has been delivered, so they
+ * must not be called on the main thread.
+ */
+public final class HttpCall implements Future<HttpResponseMessage> {
+
+	private final CountDownLatch completion = new CountDownLatch(1);
+	private final HttpClientService service;
+	private final HttpRequestMessage requestMessage;
+	private boolean cancelled;
+	private HttpResponseMessage responseMessage;
+
+	HttpCall(HttpClientService service, HttpRequestMessage requestMessage) {
+		this.service = service;
+		this.requestMessage = requestMessage;
+	}
+
+	/**
+	 * Gets the request message.
+	 *
+	 * @return Returns the request message.
+	 */
+	public HttpRequestMessage getRequestMessage() {
+		return requestMessage;
+	}
+
+	/**
+	 * Gets the tag of the request.
+	 *
+	 * @return Returns the tag, or null if the request is not tagged.
+	 */
+	public Object getTag() {
+		return requestMessage.getTag();
+	}
+
+	/**
+	 * Cancels the call and aborts its connection.
+	 *
+	 * @return Returns false if the response has already been delivered.
+	 */
+	public boolean cancel() {
+		return cancel(true);
+	}
+
+	/**
+	 * Cancels the call. The connection is always aborted, so mayInterruptIfRunning is ignored.
+	 *
+	 * @param mayInterruptIfRunning Ignored.
+	 *
+	 * @return Returns false if the response has already been delivered.
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+
+		synchronized (this) {
+
+			if (isDone()) {
+				return false;
+			}
+
+			cancelled = true;
+			completion.countDown();
+		}
+
+		service.cancel();
+
+		return true;
+	}
+
+	@Override
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	@Override
+	public boolean isDone() {
+		return completion.getCount() == 0;
+	}
+
+	/**
+	 * Waits for the response.
+	 *
+	 * @return Returns the response message.
+	 *
+	 * @throws InterruptedException
+	 * @throws ExecutionException   If the request failed without a response.
+	 */
+	@Override
+	public HttpResponseMessage get() throws InterruptedException, ExecutionException {
+		completion.await();
+		return getResult();
+	}
+
+	/**
+	 * Waits for the response for at most the given time.
+	 *
+	 * @param timeout The maximum time to wait.
+	 * @param unit    The time unit of the timeout.
+	 *
+	 * @return Returns the response message.
+	 *
+	 * @throws InterruptedException
+	 * @throws ExecutionException   If the request failed without a response.
+	 * @throws TimeoutException     If the response was not delivered in time.
+	 */
+	@Override
+	public HttpResponseMessage get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+
+		if (!completion.await(timeout, unit)) {
+			throw new TimeoutException();
+		}
+
+		return getResult();
+	}
+
+	/**
+	 * Completes the call with a response.
+	 *
+	 * @param responseMessage The response message.
+	 *
+	 * @return Returns false if the call was cancelled, in which case the response must not be delivered.
+	 */
+	boolean complete(HttpResponseMessage responseMessage) {
+
+		synchronized (this) {
+
+			if (cancelled) {
+				return false;
+			}
+
+			this.responseMessage = responseMessage;
+			completion.countDown();
+		}
+
+		return true;
+	}
+
+	private synchronized HttpResponseMessage getResult() throws ExecutionException {
+
+		if (cancelled) {
+			throw new CancellationException();
+		}
+
+		ErrorResponse error = responseMessage.getError();
+		Exception exception = error == null ? null : error.getException();
+
+		if (exception != null) {
+			throw new ExecutionException(exception);
+		}
+
+		return responseMessage;
+	}
+}
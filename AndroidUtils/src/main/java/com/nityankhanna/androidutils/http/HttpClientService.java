@@ -5,25 +5,40 @@ import android.os.AsyncTask;
 
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.entity.BufferedHttpEntity;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
-import org.json.JSONException;
-import org.json.JSONObject;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by Nityan Khanna on 01/07/13.
@@ -34,13 +49,51 @@ import java.util.List;
  */
 public final class HttpClientService {
 
+	private static final List<HttpCall> activeCalls = new ArrayList<>();
+	private static final Map<String, HttpClientTask> inFlightRequests = new HashMap<>();
+	private static volatile long defaultDeadlineMillis = 0;
+	private static volatile RetryPolicy defaultRetryPolicy = new RetryPolicy();
+	private static final List<HttpInterceptor> applicationInterceptors = new CopyOnWriteArrayList<>();
+	private static final List<HttpInterceptor> networkInterceptors = new CopyOnWriteArrayList<>();
+	private static volatile HttpEventListener eventListener;
+	private static volatile DnsResolver dnsResolver = new CachingDnsResolver(DnsResolver.SYSTEM);
+	private static volatile HttpTransport transport = new ApacheHttpTransport();
+
+	private HttpCall call;
+	private long deadlineNanos = -1;
 	private OnHttpResponseListener delegate;
+	private volatile HttpFuture<HttpResponseMessage> future;
 	private List<HttpHeader> headers;
 	private List<HttpParameter> params;
 	private HttpRequestMessage requestMessage;
 	private RequestType requestType;
+	private HttpClientTask task;
 	private URI url;
 
+	/**
+	 * Initializes a new instance of the HttpClientService class without a response listener, for requests executed
+	 * with executeRequestFuture.
+	 *
+	 * @param requestMessage The request message.
+	 */
+	public HttpClientService(HttpRequestMessage requestMessage) {
+		this(requestMessage, null);
+	}
+
+	/**
+	 * Initializes a new instance of the HttpClientService class which decodes the response body with a converter on the
+	 * background thread and delivers it to the listener. The converter is set on the request message.
+	 *
+	 * @param requestMessage The request message.
+	 * @param converter      The converter which decodes the response body.
+	 * @param listener       The listener which receives the decoded body.
+	 * @param <T>            The type of the decoded body.
+	 */
+	public <T> HttpClientService(HttpRequestMessage requestMessage, ResponseConverter<T> converter, OnConvertedResponseListener<T> listener) {
+		this(requestMessage, new ConvertedResponseListener<>(listener));
+		requestMessage.setResponseConverter(converter);
+	}
+
 	/**
 	 * Initializes a new instance of the HttpClientService class with a specified context, URL, request type and response listener.
 	 *
@@ -71,230 +124,1320 @@ public final class HttpClientService {
 	}
 
 	/**
-	 * Executes an HTTP request on a background thread.
+	 * Cancels every request with a tag which has not completed yet.
+	 *
+	 * @param tag The tag.
 	 */
-	public void executeRequestAsync() {
-		new HttpClientTask().executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+	public static void cancelAll(Object tag) {
+
+		List<HttpCall> cancelledCalls = new ArrayList<>();
+
+		synchronized (activeCalls) {
+			for (HttpCall activeCall : activeCalls) {
+				if (tag != null && tag.equals(activeCall.getTag())) {
+					cancelledCalls.add(activeCall);
+				}
+			}
+		}
+
+		for (HttpCall cancelledCall : cancelledCalls) {
+			cancelledCall.cancel();
+		}
 	}
 
-	private class HttpClientTask extends AsyncTask<Void, Void, HttpResponse> {
+	/**
+	 * Gets the deadline used by requests which do not specify their own.
+	 *
+	 * @return Returns the default deadline in milliseconds, or 0 if requests have no deadline.
+	 */
+	public static long getDefaultDeadlineMillis() {
+		return defaultDeadlineMillis;
+	}
 
-		private DefaultHttpClient client;
+	/**
+	 * Sets the total time allowed for requests which do not specify their own deadline.
+	 *
+	 * @param duration The duration, or 0 for no deadline.
+	 * @param unit     The time unit of the duration.
+	 */
+	public static void setDefaultDeadline(long duration, TimeUnit unit) {
+		defaultDeadlineMillis = unit.toMillis(duration);
+	}
 
-		@Override
-		protected HttpResponse doInBackground(Void... voids) {
+	/**
+	 * Gets the retry policy used by requests which do not specify their own.
+	 *
+	 * @return Returns the default retry policy, or null if requests are not retried.
+	 */
+	public static RetryPolicy getDefaultRetryPolicy() {
+		return defaultRetryPolicy;
+	}
 
-			client = new DefaultHttpClient();
-			HttpResponse httpResponse;
+	/**
+	 * Sets the retry policy used by requests which do not specify their own.
+	 *
+	 * @param retryPolicy The default retry policy, or null to not retry requests.
+	 */
+	public static void setDefaultRetryPolicy(RetryPolicy retryPolicy) {
+		defaultRetryPolicy = retryPolicy;
+	}
 
-			switch (requestType) {
+	/**
+	 * Adds an application interceptor, which runs once per request around the cache and the retries.
+	 * <p/>
+	 * Interceptors run in the order they were added.
+	 *
+	 * @param interceptor The interceptor.
+	 */
+	public static void addInterceptor(HttpInterceptor interceptor) {
+		applicationInterceptors.add(interceptor);
+	}
 
-				case GET:
-					httpResponse = executeGetRequest();
-					break;
+	/**
+	 * Adds a network interceptor, which runs around every attempt sent to the transport, after the timeouts have been
+	 * applied. It does not run for responses served from the cache.
+	 *
+	 * @param interceptor The interceptor.
+	 */
+	public static void addNetworkInterceptor(HttpInterceptor interceptor) {
+		networkInterceptors.add(interceptor);
+	}
 
-				case POST:
-					httpResponse = executePostRequest();
-					break;
+	/**
+	 * Removes an application or network interceptor.
+	 *
+	 * @param interceptor The interceptor.
+	 */
+	public static void removeInterceptor(HttpInterceptor interceptor) {
+		applicationInterceptors.remove(interceptor);
+		networkInterceptors.remove(interceptor);
+	}
 
-				case PUT:
-					httpResponse = executePutRequest();
-					break;
+	/**
+	 * Gets the listener which receives the events of every request.
+	 *
+	 * @return Returns the event listener, or null if there is none.
+	 */
+	public static HttpEventListener getEventListener() {
+		return eventListener;
+	}
 
-				case DELETE:
-					httpResponse = executeDeleteRequest();
-					break;
+	/**
+	 * Sets the listener which receives the events of every request, such as to collect the timings of requests.
+	 *
+	 * @param listener The event listener, or null to remove it.
+	 */
+	public static void setEventListener(HttpEventListener listener) {
+		eventListener = listener;
+	}
 
-				default:
-					throw new RuntimeException("Invalid request type");
-			}
+	/**
+	 * Gets the resolver the connections of the ApacheHttpTransport resolve hosts with.
+	 *
+	 * @return Returns the DNS resolver.
+	 */
+	public static DnsResolver getDnsResolver() {
+		return dnsResolver;
+	}
 
-			return httpResponse;
+	/**
+	 * Sets the resolver the connections of the ApacheHttpTransport resolve hosts with. The default resolver caches the
+	 * addresses of the system resolver with a CachingDnsResolver.
+	 *
+	 * @param resolver The DNS resolver.
+	 */
+	public static void setDnsResolver(DnsResolver resolver) {
+
+		if (resolver == null) {
+			throw new IllegalArgumentException("The DNS resolver cannot be null");
 		}
 
-		@Override
-		protected void onPostExecute(HttpResponse httpResponse) {
-			super.onPostExecute(httpResponse);
+		dnsResolver = resolver;
+	}
 
-			String reasonPhrase = null;
-			int statusCode = -1;
+	/**
+	 * Gets the transport requests are sent with.
+	 *
+	 * @return Returns the transport.
+	 */
+	public static HttpTransport getTransport() {
+		return transport;
+	}
 
-			if (httpResponse.getStatusLine() != null) {
-				reasonPhrase = httpResponse.getStatusLine().getReasonPhrase();
-				statusCode = httpResponse.getStatusLine().getStatusCode();
-			}
+	/**
+	 * Sets the transport requests are sent with, such as an OkHttpTransport to multiplex requests over HTTP/2.
+	 *
+	 * @param httpTransport The transport.
+	 */
+	public static void setTransport(HttpTransport httpTransport) {
 
-			HttpEntity entity = httpResponse.getEntity();
+		if (httpTransport == null) {
+			throw new IllegalArgumentException("The transport cannot be null");
+		}
 
-			List<HttpHeader> httpHeaders = new ArrayList<>();
+		transport = httpTransport;
+	}
 
-			for (Header header : httpResponse.getAllHeaders()) {
-				HttpHeader httpHeader = new HttpHeader(header.getName(), header.getValue());
-				httpHeaders.add(httpHeader);
-			}
+	/**
+	 * Executes an HTTP request on a background thread.
+	 *
+	 * @return Returns the call, which can be used to cancel the request.
+	 *
+	 * @throws RejectedExecutionException If the queue of the HttpDispatcher is full.
+	 */
+	public HttpCall executeRequestAsync() {
 
-			HttpResponseMessage responseMessage = new HttpResponseMessage(statusCode, reasonPhrase, entity, httpHeaders);
+		if (call != null) {
+			throw new IllegalStateException("The request has already been executed");
+		}
 
-			for (HttpHeader header : httpHeaders) {
+		call = new HttpCall(this, requestMessage);
 
-				if (header.getValue().contains("application/json")) {
-					responseMessage.setContentType(ContentType.JSON);
-					break;
+		HttpEventListener listener = eventListener;
+
+		if (listener != null) {
+			listener.onRequestQueued(requestMessage);
+		}
+
+		synchronized (activeCalls) {
+			activeCalls.add(call);
+		}
+
+		long deadlineMillis = requestMessage.getDeadlineMillis() >= 0 ? requestMessage.getDeadlineMillis() : defaultDeadlineMillis;
+		deadlineNanos = deadlineMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis) : -1;
+
+		String coalescingKey = getCoalescingKey();
+
+		if (coalescingKey != null) {
+
+			synchronized (inFlightRequests) {
+
+				HttpClientTask inFlightTask = inFlightRequests.get(coalescingKey);
+
+				if (inFlightTask != null && inFlightTask.canShare(this)) {
+					inFlightTask.services.add(this);
+					inFlightTask.raisePriority(requestMessage.getPriority());
+					task = inFlightTask;
+					return call;
+				}
+
+				// A request which cannot share the response runs on its own.
+				if (inFlightTask == null) {
+					task = new HttpClientTask(coalescingKey);
+					inFlightRequests.put(coalescingKey, task);
+				} else {
+					task = new HttpClientTask(null);
 				}
 			}
+		} else {
+			task = new HttpClientTask(null);
+		}
 
-			responseMessage.setRequestMessage(requestMessage);
+		try {
+			task.executeOnExecutor(task.dispatcher);
+		} catch (RejectedExecutionException e) {
+			cancel();
+			throw e;
+		}
 
-			if (statusCode >= 500) {
-				ErrorResponse error = new ErrorResponse();
+		return call;
+	}
 
-				error.setMessage(statusCode + " " + reasonPhrase);
-				responseMessage.setError(error);
+	/**
+	 * Executes an HTTP request on a background thread, and completes the future on that thread rather than on the main
+	 * thread, so the response can be parsed and transformed before anything is delivered to the main thread.
+	 * <p/>
+	 * The response listener, if there is one, is still notified on the main thread. The future fails if the request
+	 * fails without a response, and cancelling it cancels the request.
+	 *
+	 * @return Returns a future of the response.
+	 *
+	 * @throws RejectedExecutionException If the queue of the HttpDispatcher is full.
+	 */
+	public HttpFuture<HttpResponseMessage> executeRequestFuture() {
 
-				delegate.onServerError(responseMessage);
-			} else if (statusCode >= 400) {
-				ErrorResponse error = new ErrorResponse();
+		if (call != null) {
+			throw new IllegalStateException("The request has already been executed");
+		}
 
-				error.setMessage(statusCode + " " + reasonPhrase);
-				responseMessage.setError(error);
+		HttpFuture<HttpResponseMessage> requestFuture = new HttpFuture<>();
 
-				delegate.onClientError(responseMessage);
-			} else {
+		future = requestFuture;
+		requestFuture.addUpstream(executeRequestAsync());
 
-				switch (requestType) {
+		return requestFuture;
+	}
 
-					case GET:
-						delegate.onGetCompleted(responseMessage);
-						break;
+	/**
+	 * Detaches the request from its task, which is aborted once no request is waiting for its response.
+	 */
+	void cancel() {
 
-					case POST:
-						delegate.onPostCompleted(responseMessage);
-						break;
+		HttpFuture<HttpResponseMessage> requestFuture = future;
 
-					case PUT:
-						delegate.onPutCompleted(responseMessage);
-						break;
+		if (requestFuture != null) {
+			requestFuture.cancel(true);
+		}
 
-					case DELETE:
-						delegate.onDeleteCompleted(responseMessage);
-						break;
+		synchronized (activeCalls) {
+			activeCalls.remove(call);
+		}
 
-					default:
-						throw new RuntimeException("Invalid request type");
-				}
-			}
+		HttpClientTask currentTask;
+
+		synchronized (inFlightRequests) {
+			currentTask = task;
 		}
 
-		private HttpResponse executeDeleteRequest() {
+		if (currentTask != null) {
+			currentTask.detach(this);
+		}
+	}
 
-			HttpDelete delete = new HttpDelete(url);
+	/**
+	 * Delivers a response to the response listener, unless the request has been cancelled.
+	 *
+	 * @param responseMessage The response message.
+	 */
+	private void complete(HttpResponseMessage responseMessage) {
 
-			delete.setHeaders(headers.toArray(new Header[headers.size()]));
+		synchronized (activeCalls) {
+			activeCalls.remove(call);
+		}
 
-			HttpResponse httpResponse = null;
+		if (!call.complete(responseMessage)) {
+			return;
+		}
 
-			try {
-				httpResponse = client.execute(delete);
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+		completeFuture(responseMessage);
 
-			return httpResponse;
+		if (delegate != null) {
+			dispatchResponse(responseMessage);
 		}
 
-		private HttpResponse executeGetRequest() {
+		HttpEventListener listener = eventListener;
 
-			HttpGet get = new HttpGet(url);
+		if (listener == null) {
+			return;
+		}
 
-			HttpResponse httpResponse = null;
+		ErrorResponse error = responseMessage.getError();
 
-			get.setHeaders(headers.toArray(new Header[headers.size()]));
+		if (error != null && error.getException() != null) {
+			listener.onRequestFailed(requestMessage, error.getException(), responseMessage.getTimings());
+		} else {
+			listener.onRequestCompleted(responseMessage, responseMessage.getTimings());
+		}
+	}
 
-			try {
-				httpResponse = client.execute(get);
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+	/**
+	 * Completes the future of the request, unless it has already been completed on the background thread.
+	 *
+	 * @param responseMessage The response message.
+	 */
+	private void completeFuture(HttpResponseMessage responseMessage) {
 
-			return httpResponse;
+		HttpFuture<HttpResponseMessage> requestFuture = future;
+
+		if (requestFuture == null) {
+			return;
 		}
 
-		private HttpResponse executePostRequest() {
+		ErrorResponse error = responseMessage.getError();
 
-			HttpPost post = new HttpPost(url);
+		if (error != null && error.getException() != null) {
+			requestFuture.fail(error.getException());
+		} else {
+			requestFuture.complete(responseMessage);
+		}
+	}
 
-			HttpResponse httpResponse = null;
+	/**
+	 * Gets the time left before the deadline of the request.
+	 *
+	 * @return Returns the remaining time in milliseconds, or Long.MAX_VALUE if the request has no deadline.
+	 */
+	private long getRemainingMillis() {
+		return deadlineNanos == -1 ? Long.MAX_VALUE : TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+	}
 
-			try {
+	/**
+	 * Gets the key identical GET requests are coalesced on: the url and the request headers, sorted by name.
+	 *
+	 * @return Returns the key, or null if the request can not be shared.
+	 */
+	private String getCoalescingKey() {
 
-				if (requestMessage.getContentType().equals(ContentType.JSON)) {
+		if (requestType != RequestType.GET || !requestMessage.isCoalescingEnabled() || requestMessage.getResponseBodyHandler() != null) {
+			return null;
+		}
 
-					headers.add(new HttpHeader("Content-Type", "application/json;charset=" + requestMessage.getEncoding().getValue()));
-					JSONObject body = new JSONObject();
+		StringBuilder key = new StringBuilder(requestType.getValue()).append(' ').append(url.toString());
 
-					for (HttpParameter parameter : params) {
-						body.put(parameter.getName(), parameter.getValue());
-					}
+		if (headers.isEmpty()) {
+			return key.append(requestMessage.getSharedHeaders().getCanonicalForm()).toString();
+		}
 
-					post.setEntity(new StringEntity(body.toString(), requestMessage.getEncoding().getValue()));
-				} else {
+		HttpHeaders.Builder builder = requestMessage.getSharedHeaders().newBuilder();
 
-					List<NameValuePair> data = new ArrayList<>();
+		for (HttpHeader header : headers) {
+			builder.add(header.getName(), header.getValue());
+		}
 
-					for (HttpParameter parameter : params) {
-						data.add(new BasicNameValuePair(parameter.getName(), parameter.getValue()));
-					}
+		return key.append(builder.build().getCanonicalForm()).toString();
+	}
 
-					post.setEntity(new UrlEncodedFormEntity(data));
-				}
+	/**
+	 * Creates the body of a POST or PUT request.
+	 * <p/>
+	 * JSON bodies of a JsonBodyWriter are streamed to the connection rather than built in memory, while JSON parameters
+	 * are sent with a Content-Length. An entity set on the request message is used as is.
+	 *
+	 * @return Returns the entity.
+	 *
+	 * @throws IOException
+	 */
+	HttpEntity createEntity() throws IOException {
 
-				post.setHeaders(headers.toArray(new Header[headers.size()]));
+		if (requestMessage.getEntity() != null) {
+			return requestMessage.getEntity();
+		}
 
-				httpResponse = client.execute(post);
-			} catch (JSONException | IOException e) {
-				e.printStackTrace();
+		HttpParameters sharedParameters = requestMessage.getSharedParameters();
+		List<HttpParameter> parameters = params == null ? new ArrayList<HttpParameter>() : params;
+
+		if (!ContentType.JSON.equals(requestMessage.getContentType()) && parameters.isEmpty() && !sharedParameters.isEmpty()) {
+
+			StringEntity entity = new StringEntity(sharedParameters.toUrlEncodedForm(requestMessage.getEncoding()));
+
+			entity.setContentType(URLEncodedUtils.CONTENT_TYPE);
+
+			return entity;
+		}
+
+		if (!sharedParameters.isEmpty()) {
+
+			List<HttpParameter> allParameters = new ArrayList<>(sharedParameters.toList());
+
+			allParameters.addAll(parameters);
+			parameters = allParameters;
+		}
+
+		if (ContentType.JSON.equals(requestMessage.getContentType())) {
+
+			JsonEntity entity;
+
+			if (requestMessage.getJsonBody() != null) {
+				entity = new JsonEntity(requestMessage.getJsonBody(), requestMessage.getEncoding());
+			} else {
+				entity = new JsonEntity(parameters, requestMessage.getEncoding());
 			}
 
-			return httpResponse;
+			return entity;
 		}
 
-		private HttpResponse executePutRequest() {
+		List<NameValuePair> data = new ArrayList<>();
 
-			HttpPut put = new HttpPut(url);
+		for (HttpParameter parameter : parameters) {
+			data.add(new BasicNameValuePair(parameter.getName(), parameter.getValue()));
+		}
 
-			HttpResponse httpResponse = null;
+		return new UrlEncodedFormEntity(data);
+	}
 
-			try {
+	/**
+	 * Gets the headers sent with the request: the shared headers followed by the headers of the request. The cached
+	 * array of the shared headers is used as is when the request has no headers of its own.
+	 *
+	 * @return Returns the headers.
+	 */
+	Header[] getRequestHeaders() {
 
-				if (requestMessage.getContentType().equals(ContentType.JSON)) {
+		Header[] sharedHeaders = requestMessage.getSharedHeaders().getHeaderArray();
 
-					headers.add(new HttpHeader("Content-Type", "application/json;charset=" + requestMessage.getEncoding().getValue()));
-					JSONObject body = new JSONObject();
+		if (headers.isEmpty()) {
+			return sharedHeaders;
+		}
 
-					for (HttpParameter parameter : params) {
-						body.put(parameter.getName(), parameter.getValue());
-					}
+		Header[] requestHeaders = new Header[sharedHeaders.length + headers.size()];
 
-					put.setEntity(new StringEntity(body.toString(), requestMessage.getEncoding().getValue()));
-				} else {
+		System.arraycopy(sharedHeaders, 0, requestHeaders, 0, sharedHeaders.length);
 
-					List<NameValuePair> data = new ArrayList<>();
+		for (int i = 0; i < headers.size(); i++) {
+			requestHeaders[sharedHeaders.length + i] = headers.get(i);
+		}
 
-					for (HttpParameter parameter : params) {
-						data.add(new BasicNameValuePair(parameter.getName(), parameter.getValue()));
-					}
+		return requestHeaders;
+	}
 
-					put.setEntity(new UrlEncodedFormEntity(data));
-				}
+	/**
+	 * Delivers a response to the response listener.
+	 *
+	 * @param responseMessage The response message.
+	 */
+	void dispatchResponse(HttpResponseMessage responseMessage) {
 
-				put.setHeaders(headers.toArray(new Header[headers.size()]));
+		int statusCode = responseMessage.getStatusCode();
+		String reasonPhrase = responseMessage.getReasonPhrase();
 
-				httpResponse = client.execute(put);
-			} catch (JSONException | IOException e) {
-				e.printStackTrace();
+		if (responseMessage.getError() != null && responseMessage.getError().getException() != null) {
+
+			if (delegate instanceof OnHttpFailureListener) {
+				((OnHttpFailureListener) delegate).onRequestFailed(responseMessage);
+			} else {
+				delegate.onClientError(responseMessage);
 			}
+		} else if (statusCode >= 500) {
+			ErrorResponse error = new ErrorResponse();
 
-			return httpResponse;
+			error.setMessage(statusCode + " " + reasonPhrase);
+			responseMessage.setError(error);
+
+			delegate.onServerError(responseMessage);
+		} else if (statusCode >= 400) {
+			ErrorResponse error = new ErrorResponse();
+
+			error.setMessage(statusCode + " " + reasonPhrase);
+			responseMessage.setError(error);
+
+			delegate.onClientError(responseMessage);
+		} else {
+
+			switch (requestType) {
+
+				case GET:
+					delegate.onGetCompleted(responseMessage);
+					break;
+
+				case POST:
+					delegate.onPostCompleted(responseMessage);
+					break;
+
+				case PUT:
+					delegate.onPutCompleted(responseMessage);
+					break;
+
+				case DELETE:
+					delegate.onDeleteCompleted(responseMessage);
+					break;
+
+				default:
+					throw new RuntimeException("Invalid request type");
+			}
+		}
+	}
+
+	private class HttpClientTask extends AsyncTask<Void, Void, HttpResponseMessage> {
+
+		private final String coalescingKey;
+		private final ResponseConverter<?> responseConverter = requestMessage.getResponseConverter();
+		private final List<HttpClientService> services = new ArrayList<>();
+		private final HttpTimings timings = new HttpTimings();
+		private RequestPriority priority = requestMessage.getPriority();
+		private Runnable dispatchedRunnable;
+		private HttpTransport requestTransport;
+		private volatile boolean deadlineExceeded;
+		private volatile HttpUriRequest request;
+		private CompressionStats compressionStats = new CompressionStats();
+		private ResponseSource responseSource = ResponseSource.NETWORK;
+
+		private HttpClientTask(String coalescingKey) {
+			this.coalescingKey = coalescingKey;
+			services.add(HttpClientService.this);
+			timings.markQueued();
+		}
+
+		/**
+		 * Checks whether a request can share the response of the task. The request is executed with the retry policy,
+		 * the timeouts and the deadline of the task, so they have to be the same, as does the response converter. The
+		 * deadline of the task started first, so a request which joins it is never given more time than its own.
+		 *
+		 * @param service The service of the request.
+		 *
+		 * @return Returns true if the request can share the response, otherwise false.
+		 */
+		private boolean canShare(HttpClientService service) {
+
+			HttpRequestMessage other = service.requestMessage;
+
+			return responseConverter == other.getResponseConverter()
+					&& requestMessage.getRetryPolicy() == other.getRetryPolicy()
+					&& requestMessage.getConnectTimeoutMillis() == other.getConnectTimeoutMillis()
+					&& requestMessage.getSocketTimeoutMillis() == other.getSocketTimeoutMillis()
+					&& requestMessage.getDeadlineMillis() == other.getDeadlineMillis();
+		}
+
+		/**
+		 * Cancels the task when it is dropped from the queue of the HttpDispatcher, so onCancelled is called.
+		 */
+		private final Runnable dropCallback = new Runnable() {
+
+			@Override
+			public void run() {
+				cancel(false);
+			}
+		};
+
+		/**
+		 * Queues the task in the HttpDispatcher, keeping the runnable so the task can be moved to another lane.
+		 */
+		private final Executor dispatcher = new Executor() {
+
+			@Override
+			public void execute(Runnable runnable) {
+
+				RequestPriority currentPriority;
+
+				synchronized (inFlightRequests) {
+					dispatchedRunnable = runnable;
+					currentPriority = priority;
+				}
+
+				HttpDispatcher.getInstance().execute(runnable, url.getHost(), currentPriority, dropCallback);
+			}
+		};
+
+		/**
+		 * Moves the task to a higher priority lane if a request with a higher priority is waiting for its response.
+		 *
+		 * @param requestPriority The priority of the waiting request.
+		 */
+		private void raisePriority(RequestPriority requestPriority) {
+
+			synchronized (inFlightRequests) {
+
+				if (requestPriority.ordinal() >= priority.ordinal()) {
+					return;
+				}
+
+				priority = requestPriority;
+			}
+
+			HttpDispatcher.getInstance().setPriority(dispatchedRunnable, requestPriority);
+		}
+
+		/**
+		 * Stops delivering the response to a request, and aborts the task if no other request is waiting for it.
+		 *
+		 * @param service The cancelled request.
+		 */
+		private void detach(HttpClientService service) {
+
+			synchronized (inFlightRequests) {
+
+				services.remove(service);
+
+				if (!services.isEmpty()) {
+					return;
+				}
+
+				if (coalescingKey != null && inFlightRequests.get(coalescingKey) == this) {
+					inFlightRequests.remove(coalescingKey);
+				}
+			}
+
+			cancel(true);
+
+			HttpUriRequest currentRequest = request;
+
+			if (currentRequest != null) {
+				currentRequest.abort();
+			}
+		}
+
+		@Override
+		protected HttpResponseMessage doInBackground(Void... voids) {
+
+			HttpResponseMessage responseMessage = executeWithDeadline();
+
+			completeFutures(responseMessage);
+
+			return responseMessage;
+		}
+
+		/**
+		 * Completes the futures of the waiting requests on the background thread, before the response is delivered to
+		 * the main thread.
+		 *
+		 * @param responseMessage The response message.
+		 */
+		private void completeFutures(HttpResponseMessage responseMessage) {
+
+			List<HttpClientService> waitingServices;
+
+			synchronized (inFlightRequests) {
+				waitingServices = new ArrayList<>(services);
+			}
+
+			for (HttpClientService service : waitingServices) {
+
+				if (service.future == null) {
+					continue;
+				}
+
+				if (service == HttpClientService.this) {
+					service.completeFuture(responseMessage);
+				} else {
+					service.completeFuture(responseMessage.copy(service.requestMessage));
+				}
+			}
+		}
+
+		private HttpResponseMessage executeWithDeadline() {
+
+			timings.markStarted();
+
+			HttpEventListener listener = eventListener;
+
+			if (listener != null) {
+				listener.onRequestStarted(requestMessage, timings);
+			}
+
+			ScheduledFuture<?> deadlineTimer = null;
+
+			if (deadlineNanos != -1) {
+
+				long remainingMillis = getRemainingMillis();
+
+				if (remainingMillis <= 0) {
+					return createFailureMessage(createDeadlineException());
+				}
+
+				deadlineTimer = HttpConnectionManager.getInstance().schedule(new Runnable() {
+
+					@Override
+					public void run() {
+						deadlineExceeded = true;
+
+						HttpUriRequest currentRequest = request;
+
+						if (currentRequest != null) {
+							currentRequest.abort();
+						}
+					}
+				}, remainingMillis);
+			}
+
+			try {
+				return executeRequest();
+			} finally {
+				if (deadlineTimer != null) {
+					deadlineTimer.cancel(false);
+				}
+
+				timings.markCompleted();
+			}
+		}
+
+		private HttpResponseMessage executeRequest() {
+
+			requestTransport = transport;
+			HttpResponse httpResponse;
+
+			try {
+
+				HttpUriRequest httpRequest;
+
+				switch (requestType) {
+
+					case GET:
+						httpRequest = createGetRequest();
+						break;
+
+					case POST:
+						httpRequest = createPostRequest();
+						break;
+
+					case PUT:
+						httpRequest = createPutRequest();
+						break;
+
+					case DELETE:
+						httpRequest = createDeleteRequest();
+						break;
+
+					default:
+						throw new RuntimeException("Invalid request type");
+				}
+
+				if (applicationInterceptors.isEmpty()) {
+					httpResponse = executeIntercepted(httpRequest);
+				} else {
+					httpResponse = new InterceptorChain(applicationInterceptors, 0, httpRequest, null).proceed(httpRequest);
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+				return createFailureMessage(deadlineExceeded ? createDeadlineException() : e);
+			}
+
+			HttpCache cache = HttpCache.getInstalled();
+
+			if (cache != null && requestType != RequestType.GET && httpResponse.getStatusLine().getStatusCode() < 400) {
+				cache.remove(url.toString());
+			}
+
+			return createResponseMessage(httpResponse);
+		}
+
+		/**
+		 * Delivers the response. A null response means the task never ran, so it is treated as a dropped request.
+		 *
+		 * @param responseMessage The response message.
+		 */
+		@Override
+		protected void onPostExecute(HttpResponseMessage responseMessage) {
+			super.onPostExecute(responseMessage);
+			deliver(responseMessage != null ? responseMessage : createDroppedMessage());
+		}
+
+		/**
+		 * Fails the waiting requests when the task was dropped from the queue of the HttpDispatcher to make room for
+		 * a request with a higher priority. Requests which were cancelled are no longer waiting.
+		 *
+		 * @param responseMessage The response message, which is null if the task never ran.
+		 */
+		@Override
+		protected void onCancelled(HttpResponseMessage responseMessage) {
+			super.onCancelled(responseMessage);
+			deliver(createDroppedMessage());
+		}
+
+		private HttpResponseMessage createDroppedMessage() {
+			return createFailureMessage(new InterruptedIOException("The request was dropped for a request with a higher priority"));
+		}
+
+		private void deliver(HttpResponseMessage responseMessage) {
+
+			timings.markDispatched();
+
+			List<HttpClientService> waitingServices;
+
+			synchronized (inFlightRequests) {
+
+				if (coalescingKey != null && inFlightRequests.get(coalescingKey) == this) {
+					inFlightRequests.remove(coalescingKey);
+				}
+
+				waitingServices = new ArrayList<>(services);
+			}
+
+			for (HttpClientService service : waitingServices) {
+
+				if (service == HttpClientService.this) {
+					service.complete(responseMessage);
+				} else {
+					service.complete(responseMessage.copy(service.requestMessage));
+				}
+			}
+		}
+
+		/**
+		 * Creates a response message for a request which failed without a response.
+		 *
+		 * @param exception The exception which caused the failure.
+		 *
+		 * @return Returns the response message.
+		 */
+		private HttpResponseMessage createFailureMessage(IOException exception) {
+
+			HttpResponseMessage responseMessage = new HttpResponseMessage(-1, exception.getMessage(), null, new ArrayList<HttpHeader>());
+			ErrorResponse error = new ErrorResponse();
+
+			error.setMessage(exception.getClass().getSimpleName() + ": " + exception.getMessage());
+			error.setException(exception);
+
+			responseMessage.setError(error);
+			responseMessage.setRequestMessage(requestMessage);
+			responseMessage.setTimings(timings);
+
+			return responseMessage;
+		}
+
+		/**
+		 * Creates the response message on the background thread and streams the body to the response body handler, if
+		 * there is one.
+		 *
+		 * @param httpResponse The response.
+		 *
+		 * @return Returns the response message.
+		 */
+		private HttpResponseMessage createResponseMessage(HttpResponse httpResponse) {
+
+			String reasonPhrase = null;
+			int statusCode = -1;
+
+			if (httpResponse.getStatusLine() != null) {
+				reasonPhrase = httpResponse.getStatusLine().getReasonPhrase();
+				statusCode = httpResponse.getStatusLine().getStatusCode();
+			}
+
+			HttpEntity entity = httpResponse.getEntity();
+			List<HttpHeader> httpHeaders = HttpHeader.fromHeaders(httpResponse.getAllHeaders());
+
+			HttpResponseMessage responseMessage = new HttpResponseMessage(statusCode, reasonPhrase, entity, httpHeaders);
+
+			responseMessage.setResponseSource(responseSource);
+			responseMessage.setCompressionStats(compressionStats);
+			responseMessage.setTimings(timings);
+
+			for (HttpHeader header : httpHeaders) {
+
+				if (header.getValue().contains("application/json")) {
+					responseMessage.setContentType(ContentType.JSON);
+					break;
+				}
+			}
+
+			responseMessage.setRequestMessage(requestMessage);
+
+			ResponseBodyHandler bodyHandler = requestMessage.getResponseBodyHandler();
+
+			if (bodyHandler != null) {
+
+				ResponseBody body = new ResponseBody(entity, request);
+				responseMessage.setBody(body);
+
+				long bodyStartNanos = System.nanoTime();
+
+				try {
+					bodyHandler.onResponseBody(responseMessage, body);
+				} catch (IOException e) {
+					e.printStackTrace();
+					return createFailureMessage(deadlineExceeded ? createDeadlineException() : e);
+				} finally {
+					body.close();
+					timings.addBodyTransfer(System.nanoTime() - bodyStartNanos);
+				}
+			} else if (responseConverter != null && statusCode >= 200 && statusCode < 300) {
+				convert(responseMessage);
+			}
+
+			return responseMessage;
+		}
+
+		/**
+		 * Decodes the buffered body with the response converter, failing the request if it cannot be decoded.
+		 *
+		 * @param responseMessage The response message.
+		 */
+		private void convert(HttpResponseMessage responseMessage) {
+
+			IOException exception;
+
+			try {
+				responseMessage.setConvertedBody(responseConverter.convert(responseMessage, responseMessage.getBody()));
+				return;
+			} catch (IOException e) {
+				exception = e;
+			} catch (RuntimeException e) {
+				exception = new IOException(e);
+			}
+
+			exception.printStackTrace();
+
+			ErrorResponse error = new ErrorResponse();
+
+			error.setMessage(exception.getClass().getSimpleName() + ": " + exception.getMessage());
+			error.setException(exception);
+
+			responseMessage.setError(error);
+		}
+
+		private HttpUriRequest createDeleteRequest() {
+
+			HttpDelete delete = new HttpDelete(url);
+
+			delete.setHeaders(getRequestHeaders());
+
+			return delete;
+		}
+
+		private HttpUriRequest createGetRequest() {
+
+			HttpGet get = new HttpGet(url);
+
+			get.setHeaders(getRequestHeaders());
+
+			return get;
+		}
+
+		/**
+		 * Executes a request once the application interceptors have run, serving GET requests from the cache if one
+		 * is installed.
+		 *
+		 * @param request The request.
+		 *
+		 * @return Returns the response.
+		 *
+		 * @throws IOException
+		 */
+		private HttpResponse executeIntercepted(HttpUriRequest request) throws IOException {
+
+			HttpCache cache = null;
+
+			if (HttpGet.METHOD_NAME.equals(request.getMethod()) && requestMessage.getResponseBodyHandler() == null) {
+				cache = HttpCache.getInstalled();
+			}
+
+			if (cache == null) {
+				return execute(request);
+			}
+
+			return executeCachedGetRequest(cache, request);
+		}
+
+		/**
+		 * Serves a GET request from the cache when the cached response is fresh, otherwise revalidates or fetches it
+		 * and stores the result.
+		 *
+		 * @param cache The installed cache.
+		 * @param get   The request.
+		 *
+		 * @return Returns the response.
+		 *
+		 * @throws IOException
+		 */
+		private HttpResponse executeCachedGetRequest(HttpCache cache, HttpUriRequest get) throws IOException {
+
+			String cacheKey = get.getURI().toString();
+			Header cacheControlHeader = get.getFirstHeader("Cache-Control");
+			String cacheControl = cacheControlHeader == null ? null : cacheControlHeader.getValue();
+			HttpCacheEntry entry = cache.get(cacheKey);
+
+			if (entry != null && !HttpCacheEntry.hasDirective(cacheControl, "no-cache")
+					&& HttpCacheEntry.getDirectiveSeconds(cacheControl, "max-age") != 0
+					&& entry.isFresh(System.currentTimeMillis())) {
+
+				cache.trackHit();
+				responseSource = ResponseSource.CACHE;
+
+				return entry.toHttpResponse();
+			}
+
+			if (entry != null && entry.canRevalidate()) {
+
+				if (entry.getETag() != null && !get.containsHeader("If-None-Match")) {
+					get.addHeader("If-None-Match", entry.getETag());
+				}
+
+				if (entry.getLastModified() != null && !get.containsHeader("If-Modified-Since")) {
+					get.addHeader("If-Modified-Since", entry.getLastModified());
+				}
+			}
+
+			HttpResponse httpResponse = execute(get);
+
+			if (entry != null && httpResponse.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+
+				HttpCacheEntry revalidatedEntry = entry.revalidated(httpResponse.getAllHeaders(), System.currentTimeMillis());
+
+				cache.update(revalidatedEntry);
+				cache.trackRevalidate();
+				responseSource = ResponseSource.CONDITIONAL_CACHE;
+
+				return revalidatedEntry.toHttpResponse();
+			}
+
+			cache.trackMiss();
+
+			if (httpResponse.getEntity() != null && !HttpCacheEntry.hasDirective(cacheControl, "no-store")
+					&& HttpCacheEntry.isCacheable(httpResponse)) {
+				cache.put(cacheKey, httpResponse, EntityUtils.toByteArray(httpResponse.getEntity()));
+			}
+
+			return httpResponse;
+		}
+
+		private HttpUriRequest createPostRequest() throws IOException {
+
+			HttpPost post = new HttpPost(url);
+
+			post.setEntity(createEntity());
+			post.setHeaders(getRequestHeaders());
+
+			return post;
+		}
+
+		private HttpUriRequest createPutRequest() throws IOException {
+
+			HttpPut put = new HttpPut(url);
+
+			put.setEntity(createEntity());
+			put.setHeaders(getRequestHeaders());
+
+			return put;
+		}
+
+		/**
+		 * Executes a request with the transport, retrying it according to the retry policy.
+		 * <p/>
+		 * Unless the body is streamed to a response body handler, the entity is buffered so the connection is returned
+		 * to the pool before the response is handed to the main thread.
+		 *
+		 * @param request The request to execute.
+		 *
+		 * @return Returns the response.
+		 *
+		 * @throws IOException
+		 */
+		private HttpResponse execute(HttpUriRequest request) throws IOException {
+
+			this.request = request;
+
+			RetryPolicy retryPolicy = requestMessage.getRetryPolicy() != null ? requestMessage.getRetryPolicy() : defaultRetryPolicy;
+			boolean repeatable = !(request instanceof HttpEntityEnclosingRequest)
+					|| ((HttpEntityEnclosingRequest) request).getEntity() == null
+					|| ((HttpEntityEnclosingRequest) request).getEntity().isRepeatable();
+
+			for (int attempt = 1; ; attempt++) {
+
+				if (isCancelled()) {
+					request.abort();
+					throw new InterruptedIOException("The request was cancelled");
+				}
+
+				boolean canRetry = repeatable && retryPolicy != null && retryPolicy.canRetry(requestType, attempt);
+				HttpResponse httpResponse;
+
+				applyTimeouts(request);
+
+				try {
+					httpResponse = executeOnce(request);
+				} catch (IOException e) {
+
+					long delayMillis = canRetry && !deadlineExceeded ? retryPolicy.getDelayMillis(attempt, null) : -1;
+
+					if (delayMillis < 0 || delayMillis >= getRemainingMillis()) {
+						throw e;
+					}
+
+					sleep(delayMillis);
+					continue;
+				}
+
+				int statusCode = httpResponse.getStatusLine().getStatusCode();
+
+				if (!canRetry || !retryPolicy.isRetryableStatus(statusCode)) {
+					return httpResponse;
+				}
+
+				Header retryAfter = httpResponse.getFirstHeader("Retry-After");
+				long delayMillis = retryPolicy.getDelayMillis(attempt, retryAfter == null ? null : retryAfter.getValue());
+
+				if (delayMillis < 0 || delayMillis >= getRemainingMillis()) {
+					return httpResponse;
+				}
+
+				if (httpResponse.getEntity() != null) {
+					httpResponse.getEntity().consumeContent();
+				}
+
+				sleep(delayMillis);
+			}
+		}
+
+		/**
+		 * Sets the connect, socket and connection pool timeouts of the request, shortened to the time left before the
+		 * deadline.
+		 *
+		 * @param request The request.
+		 *
+		 * @throws DeadlineExceededException
+		 */
+		private void applyTimeouts(HttpUriRequest request) throws DeadlineExceededException {
+
+			long remainingMillis = getRemainingMillis();
+
+			if (remainingMillis <= 0) {
+				throw createDeadlineException();
+			}
+
+			HttpConnectionManager connectionManager = HttpConnectionManager.getInstance();
+			HttpParams requestParams = request.getParams();
+			long connectTimeout = requestMessage.getConnectTimeoutMillis() >= 0
+					? requestMessage.getConnectTimeoutMillis() : connectionManager.getConnectTimeoutMillis();
+			long socketTimeout = requestMessage.getSocketTimeoutMillis() >= 0
+					? requestMessage.getSocketTimeoutMillis() : connectionManager.getSocketTimeoutMillis();
+
+			HttpConnectionParams.setConnectionTimeout(requestParams, boundTimeout(connectTimeout, remainingMillis));
+			HttpConnectionParams.setSoTimeout(requestParams, boundTimeout(socketTimeout, remainingMillis));
+
+			if (deadlineNanos != -1) {
+				ConnManagerParams.setTimeout(requestParams, remainingMillis);
+			}
+		}
+
+		private int boundTimeout(long timeoutMillis, long remainingMillis) {
+
+			long bounded = timeoutMillis == 0 || timeoutMillis > remainingMillis ? remainingMillis : timeoutMillis;
+
+			return (int) Math.min(Integer.MAX_VALUE, bounded);
+		}
+
+		private HttpResponse executeOnce(HttpUriRequest request) throws IOException {
+
+			HttpContext context = new BasicHttpContext();
+			context.setAttribute(HttpCompression.STATS_ATTRIBUTE, compressionStats);
+			request.getParams().setParameter(TimingSocketFactory.TIMINGS_PARAMETER, timings);
+			timings.markAttemptStarted();
+
+			try {
+				HttpResponse httpResponse;
+
+				if (networkInterceptors.isEmpty()) {
+					httpResponse = requestTransport.execute(request, context);
+				} else {
+					httpResponse = new InterceptorChain(networkInterceptors, 0, request, context).proceed(request);
+				}
+
+				timings.markHeadersReceived();
+
+				HttpEventListener listener = eventListener;
+
+				if (listener != null) {
+					listener.onResponseHeaders(requestMessage, httpResponse.getStatusLine().getStatusCode(), timings);
+				}
+
+				HttpEntity entity = httpResponse.getEntity();
+
+				if (entity != null && requestMessage.getResponseBodyHandler() == null) {
+
+					long bodyStartNanos = System.nanoTime();
+
+					httpResponse.setEntity(new BufferedHttpEntity(entity));
+					entity.consumeContent();
+					timings.addBodyTransfer(System.nanoTime() - bodyStartNanos);
+				}
+
+				return httpResponse;
+			} catch (RuntimeException e) {
+				request.abort();
+				throw e;
+			}
+		}
+
+		/**
+		 * Runs the remaining interceptors of a chain. Application chains end by executing the request with retries and
+		 * the cache, network chains end with the transport.
+		 */
+		private class InterceptorChain implements HttpInterceptor.Chain {
+
+			private final List<HttpInterceptor> interceptors;
+			private final int index;
+			private final HttpUriRequest chainRequest;
+			private final HttpContext context;
+
+			private InterceptorChain(List<HttpInterceptor> interceptors, int index, HttpUriRequest chainRequest, HttpContext context) {
+				this.interceptors = interceptors;
+				this.index = index;
+				this.chainRequest = chainRequest;
+				this.context = context;
+			}
+
+			@Override
+			public HttpRequestMessage getRequestMessage() {
+				return requestMessage;
+			}
+
+			@Override
+			public HttpUriRequest getRequest() {
+				return chainRequest;
+			}
+
+			@Override
+			public boolean isNetwork() {
+				return context != null;
+			}
+
+			@Override
+			public HttpResponse proceed(HttpUriRequest nextRequest) throws IOException {
+
+				if (index < interceptors.size()) {
+
+					HttpInterceptor interceptor = interceptors.get(index);
+					HttpResponse httpResponse = interceptor.intercept(new InterceptorChain(interceptors, index + 1, nextRequest, context));
+
+					if (httpResponse == null) {
+						throw new IllegalStateException(interceptor.getClass().getName() + " returned a null response");
+					}
+
+					return httpResponse;
+				}
+
+				if (context == null) {
+					return executeIntercepted(nextRequest);
+				}
+
+				request = nextRequest;
+
+				return requestTransport.execute(nextRequest, context);
+			}
+		}
+
+		private DeadlineExceededException createDeadlineException() {
+
+			long deadlineMillis = requestMessage.getDeadlineMillis() >= 0 ? requestMessage.getDeadlineMillis() : defaultDeadlineMillis;
+
+			return new DeadlineExceededException("The request did not complete within " + deadlineMillis + "ms");
+		}
+
+		private void sleep(long delayMillis) throws IOException {
+
+			try {
+				Thread.sleep(delayMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting to retry");
+			}
+		}
+	}
+
+	/**
+	 * Adapts an OnConvertedResponseListener to the callbacks of a response listener.
+	 *
+	 * @param <T> The type of the decoded body.
+	 */
+	private static final class ConvertedResponseListener<T> implements OnHttpResponseListener, OnHttpFailureListener {
+
+		private final OnConvertedResponseListener<T> listener;
+
+		private ConvertedResponseListener(OnConvertedResponseListener<T> listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public void onGetCompleted(HttpResponseMessage response) {
+			listener.onResponse(response.<T>getConvertedBody(), response);
+		}
+
+		@Override
+		public void onPostCompleted(HttpResponseMessage response) {
+			listener.onResponse(response.<T>getConvertedBody(), response);
+		}
+
+		@Override
+		public void onPutCompleted(HttpResponseMessage response) {
+			listener.onResponse(response.<T>getConvertedBody(), response);
+		}
+
+		@Override
+		public void onDeleteCompleted(HttpResponseMessage response) {
+			listener.onResponse(response.<T>getConvertedBody(), response);
+		}
+
+		@Override
+		public void onClientError(HttpResponseMessage response) {
+			listener.onFailure(response);
+		}
+
+		@Override
+		public void onServerError(HttpResponseMessage response) {
+			listener.onFailure(response);
+		}
+
+		@Override
+		public void onRequestFailed(HttpResponseMessage response) {
+			listener.onFailure(response);
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,313 @@
+package com.nityankhanna.androidutils.http;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Negotiates gzip and deflate compression for every request made through the shared HTTP client.
+ * <p/>
+ * Responses are decompressed as they are read. Request bodies are only compressed when a threshold has been set,
+ * since the server has to support compressed requests.
+ */
+public final class HttpCompression {
+
+	static final String STATS_ATTRIBUTE = "com.nityankhanna.androidutils.http.compression-stats";
+
+	private static final String ACCEPT_ENCODING = "gzip, deflate";
+
+	private static HttpCompression sharedInstance;
+
+	private volatile boolean responseCompressionEnabled = true;
+	private volatile long requestCompressionThreshold = -1;
+
+	private HttpCompression() {
+	}
+
+	/**
+	 * Returns a shared instance of the HttpCompression class.
+	 *
+	 * @return Returns a shared instance of the HttpCompression class.
+	 */
+	public static HttpCompression getInstance() {
+
+		synchronized (HttpCompression.class) {
+
+			if (sharedInstance == null) {
+				sharedInstance = new HttpCompression();
+			}
+		}
+
+		return sharedInstance;
+	}
+
+	/**
+	 * Checks if compressed responses are requested.
+	 *
+	 * @return Returns true if the Accept-Encoding header is sent.
+	 */
+	public boolean isResponseCompressionEnabled() {
+		return responseCompressionEnabled;
+	}
+
+	/**
+	 * Sets whether compressed responses are requested.
+	 *
+	 * @param responseCompressionEnabled True to send the Accept-Encoding header.
+	 */
+	public void setResponseCompressionEnabled(boolean responseCompressionEnabled) {
+		this.responseCompressionEnabled = responseCompressionEnabled;
+	}
+
+	/**
+	 * Gets the size above which request bodies are gzipped.
+	 *
+	 * @return Returns the threshold in bytes, or -1 if request bodies are never compressed.
+	 */
+	public long getRequestCompressionThreshold() {
+		return requestCompressionThreshold;
+	}
+
+	/**
+	 * Sets the size above which request bodies are gzipped. Bodies of unknown length are always compressed once a
+	 * threshold has been set.
+	 *
+	 * @param requestCompressionThreshold The threshold in bytes, or -1 to never compress request bodies.
+	 */
+	public void setRequestCompressionThreshold(long requestCompressionThreshold) {
+		this.requestCompressionThreshold = requestCompressionThreshold;
+	}
+
+	HttpRequestInterceptor createRequestInterceptor() {
+		return new RequestInterceptor();
+	}
+
+	HttpResponseInterceptor createResponseInterceptor() {
+		return new ResponseInterceptor();
+	}
+
+	private static CompressionStats getStats(HttpContext context) {
+
+		Object stats = context == null ? null : context.getAttribute(STATS_ATTRIBUTE);
+
+		return stats instanceof CompressionStats ? (CompressionStats) stats : new CompressionStats();
+	}
+
+	/**
+	 * Adds the Accept-Encoding header and compresses large request bodies.
+	 * <p/>
+	 * This has to run before the standard interceptors so the Content-Length and Content-Encoding headers are
+	 * generated from the compressed entity.
+	 */
+	private class RequestInterceptor implements HttpRequestInterceptor {
+
+		@Override
+		public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
+
+			if (responseCompressionEnabled && !request.containsHeader("Accept-Encoding")) {
+				request.addHeader("Accept-Encoding", ACCEPT_ENCODING);
+			}
+
+			long threshold = requestCompressionThreshold;
+
+			if (threshold < 0 || !(request instanceof HttpEntityEnclosingRequest)) {
+				return;
+			}
+
+			HttpEntityEnclosingRequest enclosingRequest = (HttpEntityEnclosingRequest) request;
+			HttpEntity entity = enclosingRequest.getEntity();
+
+			if (entity == null || entity.getContentEncoding() != null || request.containsHeader("Content-Encoding")) {
+				return;
+			}
+
+			long length = entity.getContentLength();
+
+			if (length < 0 || length > threshold) {
+				enclosingRequest.setEntity(new GzipCompressingEntity(entity, getStats(context)));
+			}
+		}
+	}
+
+	/**
+	 * Decompresses gzip and deflate response bodies as they are read.
+	 */
+	private static class ResponseInterceptor implements HttpResponseInterceptor {
+
+		@Override
+		public void process(HttpResponse response, HttpContext context) throws HttpException, IOException {
+
+			HttpEntity entity = response.getEntity();
+
+			if (entity == null || entity.getContentEncoding() == null) {
+				return;
+			}
+
+			String encoding = entity.getContentEncoding().getValue().trim().toLowerCase(Locale.US);
+
+			if (!encoding.equals("gzip") && !encoding.equals("x-gzip") && !encoding.equals("deflate")) {
+				return;
+			}
+
+			response.setEntity(new DecompressingEntity(entity, encoding, getStats(context)));
+			response.removeHeaders("Content-Encoding");
+			response.removeHeaders("Content-Length");
+		}
+	}
+
+	private static class DecompressingEntity extends HttpEntityWrapper {
+
+		private final String encoding;
+		private final CompressionStats stats;
+		private InputStream content;
+
+		private DecompressingEntity(HttpEntity entity, String encoding, CompressionStats stats) {
+			super(entity);
+			this.encoding = encoding;
+			this.stats = stats;
+		}
+
+		@Override
+		public InputStream getContent() throws IOException {
+
+			if (content != null && !wrappedEntity.isRepeatable()) {
+				return content;
+			}
+
+			CountingInputStream wire = new CountingInputStream(wrappedEntity.getContent());
+			CountingInputStream body;
+
+			if (encoding.equals("deflate")) {
+				body = new CountingInputStream(createInflaterStream(wire));
+			} else {
+				body = new CountingInputStream(new GZIPInputStream(wire));
+			}
+
+			stats.setResponseStreams(body, wire);
+			content = body;
+
+			return content;
+		}
+
+		@Override
+		public void writeTo(OutputStream outputStream) throws IOException {
+
+			InputStream inputStream = getContent();
+			byte[] buffer = new byte[ResponseBody.DEFAULT_CHUNK_SIZE];
+			int count;
+
+			try {
+				while ((count = inputStream.read(buffer)) != -1) {
+					outputStream.write(buffer, 0, count);
+				}
+			} finally {
+				inputStream.close();
+			}
+		}
+
+		@Override
+		public Header getContentEncoding() {
+			return null;
+		}
+
+		@Override
+		public long getContentLength() {
+			return -1;
+		}
+
+		/**
+		 * Servers send deflate bodies both with and without the zlib header, so the first two bytes are checked.
+		 */
+		private static InputStream createInflaterStream(InputStream inputStream) throws IOException {
+
+			PushbackInputStream pushbackStream = new PushbackInputStream(inputStream, 2);
+			int first = pushbackStream.read();
+
+			if (first == -1) {
+				return pushbackStream;
+			}
+
+			int second = pushbackStream.read();
+
+			if (second != -1) {
+				pushbackStream.unread(second);
+			}
+
+			pushbackStream.unread(first);
+
+			boolean zlibWrapped = (first & 0x0f) == 8 && second != -1 && ((first << 8) | second) % 31 == 0;
+
+			return new InflaterInputStream(pushbackStream, new Inflater(!zlibWrapped));
+		}
+	}
+
+	private static class GzipCompressingEntity extends HttpEntityWrapper {
+
+		private final CompressionStats stats;
+
+		private GzipCompressingEntity(HttpEntity entity, CompressionStats stats) {
+			super(entity);
+			this.stats = stats;
+		}
+
+		@Override
+		public Header getContentEncoding() {
+			return new BasicHeader("Content-Encoding", "gzip");
+		}
+
+		@Override
+		public long getContentLength() {
+			return -1;
+		}
+
+		@Override
+		public boolean isChunked() {
+			return true;
+		}
+
+		@Override
+		public InputStream getContent() throws IOException {
+
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream);
+
+			wrappedEntity.writeTo(gzipStream);
+			gzipStream.finish();
+
+			return new ByteArrayInputStream(outputStream.toByteArray());
+		}
+
+		@Override
+		public void writeTo(OutputStream outputStream) throws IOException {
+
+			CountingOutputStream wire = new CountingOutputStream(outputStream);
+			GZIPOutputStream gzipStream = new GZIPOutputStream(wire);
+			CountingOutputStream body = new CountingOutputStream(gzipStream);
+
+			stats.setRequestStreams(body, wire);
+			wrappedEntity.writeTo(body);
+			gzipStream.finish();
+			wire.flush();
+		}
+	}
+}
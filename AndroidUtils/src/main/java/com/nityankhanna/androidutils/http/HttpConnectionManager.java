@@ -0,0 +1,443 @@
+package com.nityankhanna.androidutils.http;
+
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.params.HttpProtocolParams;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A process wide, thread safe pool of HTTP connections shared by every HttpClientService.
+ * <p/>
+ * Connections are kept alive between requests and reused per route (scheme, host and port),
+ * idle connections are evicted in the background.
+ */
+public final class HttpConnectionManager {
+
+	private static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 20;
+	private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 5;
+	private static final long DEFAULT_KEEP_ALIVE_MILLIS = 30000;
+	private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 60000;
+	private static final long DEFAULT_POOL_TIMEOUT_MILLIS = 30000;
+	private static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 15000;
+	private static final int DEFAULT_SOCKET_TIMEOUT_MILLIS = 30000;
+	private static final long EVICTION_INTERVAL_MILLIS = 15000;
+
+	private static HttpConnectionManager sharedInstance;
+
+	private final DefaultHttpClient client;
+	private final ConnPerRouteBean connPerRoute;
+	private final TrackingConnectionManager connectionManager;
+	private final ScheduledExecutorService scheduler;
+	private final HttpParams params;
+	private volatile long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+	private volatile long keepAliveMillis = DEFAULT_KEEP_ALIVE_MILLIS;
+
+	private HttpConnectionManager() {
+		params = new BasicHttpParams();
+		connPerRoute = new ConnPerRouteBean(DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+
+		HttpProtocolParams.setVersion(params, HttpVersion.HTTP_1_1);
+		HttpProtocolParams.setContentCharset(params, HTTP.UTF_8);
+		ConnManagerParams.setMaxTotalConnections(params, DEFAULT_MAX_TOTAL_CONNECTIONS);
+		ConnManagerParams.setMaxConnectionsPerRoute(params, connPerRoute);
+		ConnManagerParams.setTimeout(params, DEFAULT_POOL_TIMEOUT_MILLIS);
+		HttpConnectionParams.setConnectionTimeout(params, DEFAULT_CONNECT_TIMEOUT_MILLIS);
+		HttpConnectionParams.setSoTimeout(params, DEFAULT_SOCKET_TIMEOUT_MILLIS);
+
+		SchemeRegistry schemeRegistry = new SchemeRegistry();
+		schemeRegistry.register(new Scheme("http", new TimingSocketFactory(), 80));
+		schemeRegistry.register(new Scheme("https", new TimingSocketFactory.Layered(TlsSocketFactory.getInstance()), 443));
+
+		connectionManager = new TrackingConnectionManager(params, schemeRegistry);
+
+		client = new DefaultHttpClient(connectionManager, params);
+		client.setKeepAliveStrategy(new KeepAliveStrategy());
+		client.setHttpRequestRetryHandler(new DefaultHttpRequestRetryHandler(0, false));
+		client.addRequestInterceptor(HttpCompression.getInstance().createRequestInterceptor(), 0);
+		client.addResponseInterceptor(HttpCompression.getInstance().createResponseInterceptor());
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "HttpConnectionManager-scheduler");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				closeIdleConnections();
+			}
+		}, EVICTION_INTERVAL_MILLIS, EVICTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns a shared instance of the HttpConnectionManager class.
+	 *
+	 * @return Returns a shared instance of the HttpConnectionManager class.
+	 */
+	public static HttpConnectionManager getInstance() {
+
+		synchronized (HttpConnectionManager.class) {
+
+			if (sharedInstance == null) {
+				sharedInstance = new HttpConnectionManager();
+			}
+		}
+
+		return sharedInstance;
+	}
+
+	/**
+	 * Gets the shared HTTP client backed by the connection pool.
+	 *
+	 * @return Returns the shared HTTP client.
+	 */
+	public DefaultHttpClient getHttpClient() {
+		return client;
+	}
+
+	/**
+	 * Sets the maximum number of connections across all routes.
+	 *
+	 * @param maxTotalConnections The maximum number of connections.
+	 */
+	public void setMaxTotalConnections(int maxTotalConnections) {
+		ConnManagerParams.setMaxTotalConnections(params, maxTotalConnections);
+	}
+
+	/**
+	 * Sets the default maximum number of connections per route.
+	 * <p/>
+	 * This only applies to routes which have not been connected to yet.
+	 *
+	 * @param maxConnectionsPerRoute The maximum number of connections per route.
+	 */
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		connPerRoute.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+	}
+
+	/**
+	 * Sets the maximum number of connections to the host of a url.
+	 * <p/>
+	 * This only applies if the host has not been connected to yet.
+	 *
+	 * @param url            The url of the host.
+	 * @param maxConnections The maximum number of connections.
+	 */
+	public void setMaxConnectionsForHost(String url, int maxConnections) {
+		connPerRoute.setMaxForRoute(routeFor(url), maxConnections);
+	}
+
+	/**
+	 * Sets how long a connection is kept alive when the server does not specify a keep alive timeout.
+	 *
+	 * @param duration The duration.
+	 * @param unit     The time unit of the duration.
+	 */
+	public void setKeepAliveDuration(long duration, TimeUnit unit) {
+		keepAliveMillis = unit.toMillis(duration);
+	}
+
+	/**
+	 * Sets how long a connection may sit idle in the pool before it is evicted.
+	 *
+	 * @param duration The duration.
+	 * @param unit     The time unit of the duration.
+	 */
+	public void setIdleTimeout(long duration, TimeUnit unit) {
+		idleTimeoutMillis = unit.toMillis(duration);
+	}
+
+	/**
+	 * Sets how long a request waits for a connection to become available in the pool.
+	 *
+	 * @param duration The duration.
+	 * @param unit     The time unit of the duration.
+	 */
+	public void setPoolTimeout(long duration, TimeUnit unit) {
+		ConnManagerParams.setTimeout(params, unit.toMillis(duration));
+	}
+
+	/**
+	 * Sets the default time allowed to establish a connection. Requests may override it.
+	 *
+	 * @param duration The duration, or 0 to wait indefinitely.
+	 * @param unit     The time unit of the duration.
+	 */
+	public void setConnectTimeout(long duration, TimeUnit unit) {
+		HttpConnectionParams.setConnectionTimeout(params, (int) unit.toMillis(duration));
+	}
+
+	/**
+	 * Gets the default time allowed to establish a connection.
+	 *
+	 * @return Returns the connect timeout in milliseconds.
+	 */
+	public int getConnectTimeoutMillis() {
+		return HttpConnectionParams.getConnectionTimeout(params);
+	}
+
+	/**
+	 * Sets the default time allowed between two packets of a response. Requests may override it.
+	 *
+	 * @param duration The duration, or 0 to wait indefinitely.
+	 * @param unit     The time unit of the duration.
+	 */
+	public void setSocketTimeout(long duration, TimeUnit unit) {
+		HttpConnectionParams.setSoTimeout(params, (int) unit.toMillis(duration));
+	}
+
+	/**
+	 * Gets the default time allowed between two packets of a response.
+	 *
+	 * @return Returns the socket timeout in milliseconds.
+	 */
+	public int getSocketTimeoutMillis() {
+		return HttpConnectionParams.getSoTimeout(params);
+	}
+
+	/**
+	 * Schedules a task on the background thread of the connection manager.
+	 *
+	 * @param runnable    The task.
+	 * @param delayMillis The delay in milliseconds.
+	 *
+	 * @return Returns a future which can be used to cancel the task.
+	 */
+	ScheduledFuture<?> schedule(Runnable runnable, long delayMillis) {
+		return scheduler.schedule(runnable, delayMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Closes expired connections and connections which have been idle longer than the idle timeout.
+	 */
+	public void closeIdleConnections() {
+		connectionManager.closeExpiredConnections();
+		connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Gets the total number of connections in the pool.
+	 *
+	 * @return Returns the total number of connections in the pool.
+	 */
+	public int getConnectionsInPool() {
+		return connectionManager.getConnectionsInPool();
+	}
+
+	/**
+	 * Gets the statistics of the route to the host of a url.
+	 *
+	 * @param url The url of the host.
+	 *
+	 * @return Returns the statistics of the route.
+	 */
+	public ConnectionRouteStats getRouteStats(String url) {
+		return connectionManager.getStats(routeFor(url));
+	}
+
+	/**
+	 * Gets the statistics of every route which has been connected to.
+	 *
+	 * @return Returns a list of route statistics.
+	 */
+	public List<ConnectionRouteStats> getRouteStats() {
+
+		List<ConnectionRouteStats> stats = new ArrayList<>();
+
+		for (HttpRoute route : connectionManager.counters.keySet()) {
+			stats.add(connectionManager.getStats(route));
+		}
+
+		return stats;
+	}
+
+	/**
+	 * Shuts down the pool, closing every connection.
+	 * <p/>
+	 * The shared instance is recreated on the next call to getInstance().
+	 */
+	public void shutdown() {
+
+		synchronized (HttpConnectionManager.class) {
+
+			if (sharedInstance == this) {
+				sharedInstance = null;
+			}
+		}
+
+		scheduler.shutdownNow();
+		connectionManager.shutdown();
+	}
+
+	/**
+	 * Creates the route a url is connected through, in the way DefaultHttpClient plans it. The port is kept as -1 when
+	 * the url does not specify one, so a url with an explicit default port is a separate route.
+	 *
+	 * @param url The url.
+	 *
+	 * @return Returns the route.
+	 */
+	private static HttpRoute routeFor(String url) {
+
+		URI uri = URI.create(url);
+		boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+
+		return new HttpRoute(new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme()), null, secure);
+	}
+
+	/**
+	 * Honours the Keep-Alive header and otherwise falls back to the configured keep alive duration.
+	 */
+	private class KeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+		@Override
+		public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+
+			HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+
+			while (it.hasNext()) {
+
+				HeaderElement element = it.nextElement();
+
+				if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+					try {
+						return Long.parseLong(element.getValue()) * 1000;
+					} catch (NumberFormatException ignored) {
+					}
+				}
+			}
+
+			return keepAliveMillis;
+		}
+	}
+
+	/**
+	 * A ThreadSafeClientConnManager which keeps count of leased and pending connections per route.
+	 */
+	private static class TrackingConnectionManager extends ThreadSafeClientConnManager {
+
+		private final Map<HttpRoute, RouteCounter> counters = new ConcurrentHashMap<>();
+		private final Map<ManagedClientConnection, RouteCounter> leasedConnections = new ConcurrentHashMap<>();
+
+		private TrackingConnectionManager(HttpParams params, SchemeRegistry schemeRegistry) {
+			super(params, schemeRegistry);
+		}
+
+		@Override
+		public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+
+			final RouteCounter counter = counterFor(route);
+			final ClientConnectionRequest request = super.requestConnection(route, state);
+
+			counter.pending.incrementAndGet();
+
+			return new ClientConnectionRequest() {
+
+				@Override
+				public ManagedClientConnection getConnection(long timeout, TimeUnit unit) throws InterruptedException, ConnectionPoolTimeoutException {
+
+					try {
+						ManagedClientConnection connection = request.getConnection(timeout, unit);
+						leasedConnections.put(connection, counter);
+						counter.leased.incrementAndGet();
+						return connection;
+					} finally {
+						counter.pending.decrementAndGet();
+					}
+				}
+
+				@Override
+				public void abortRequest() {
+					request.abortRequest();
+				}
+			};
+		}
+
+		/**
+		 * Releases a connection, decrementing the counter of the route it was leased for. The route of the connection
+		 * can not be used, since it is cleared when an aborted connection is shut down.
+		 */
+		@Override
+		public void releaseConnection(ManagedClientConnection connection, long validDuration, TimeUnit timeUnit) {
+
+			RouteCounter counter = leasedConnections.remove(connection);
+
+			super.releaseConnection(connection, validDuration, timeUnit);
+
+			if (counter != null) {
+				counter.leased.decrementAndGet();
+			}
+		}
+
+		private RouteCounter counterFor(HttpRoute route) {
+
+			RouteCounter counter = counters.get(route);
+
+			if (counter == null) {
+				synchronized (counters) {
+					counter = counters.get(route);
+
+					if (counter == null) {
+						counter = new RouteCounter();
+						counters.put(route, counter);
+					}
+				}
+			}
+
+			return counter;
+		}
+
+		private ConnectionRouteStats getStats(HttpRoute route) {
+
+			RouteCounter counter = counterFor(route);
+			int leased = Math.max(0, counter.leased.get());
+			int available = Math.max(0, getConnectionsInPool(route) - leased);
+
+			return new ConnectionRouteStats(route.getTargetHost().toURI(), leased, available, Math.max(0, counter.pending.get()));
+		}
+	}
+
+	private static class RouteCounter {
+
+		private final AtomicInteger leased = new AtomicInteger();
+		private final AtomicInteger pending = new AtomicInteger();
+	}
+}
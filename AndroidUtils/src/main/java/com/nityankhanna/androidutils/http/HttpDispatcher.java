@@ -0,0 +1,443 @@
+package com.nityankhanna.androidutils.http;
+
+import android.os.Process;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A dedicated executor for network requests, used by HttpClientService and ImageDownloader.
+ * <p/>
+ * At most a fixed number of requests run at once, overall and per host, so a burst of requests to one host can not
+ * starve the others. Waiting requests are queued in one lane per RequestPriority and the queue is bounded.
+ * <p/>
+ * Higher priority requests preempt queued lower priority ones: they always start first, and when the queue is full
+ * the most recently queued request of the lowest priority is dropped to make room for them. The owner of a dropped
+ * request is notified through the drop callback it was queued with, so an AsyncTask can cancel itself and receive
+ * onCancelled. Prefetch requests only use part of the capacity, so a request the user is waiting for can start
+ * without waiting for a prefetch to finish.
+ */
+public final class HttpDispatcher {
+
+	private static final int DEFAULT_MAX_REQUESTS = 16;
+	private static final int DEFAULT_MAX_REQUESTS_PER_HOST = 5;
+	private static final int DEFAULT_MAX_QUEUED_REQUESTS = 256;
+	private static final int PREFETCH_CAPACITY_DIVISOR = 2;
+	private static final long THREAD_KEEP_ALIVE_SECONDS = 60;
+
+	private static HttpDispatcher sharedInstance;
+
+	private final ThreadPoolExecutor executor;
+	private final Map<RequestPriority, ArrayDeque<DispatchedRunnable>> lanes = new HashMap<>();
+	private final Map<String, Integer> runningPerHost = new HashMap<>();
+	private int maxRequests = DEFAULT_MAX_REQUESTS;
+	private int maxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
+	private int maxQueuedRequests = DEFAULT_MAX_QUEUED_REQUESTS;
+	private int queuedCount;
+	private int runningCount;
+
+	private HttpDispatcher() {
+
+		for (RequestPriority priority : RequestPriority.values()) {
+			lanes.put(priority, new ArrayDeque<DispatchedRunnable>());
+		}
+
+		executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new SynchronousQueue<Runnable>(), new ThreadFactory() {
+
+			private final AtomicInteger threadCount = new AtomicInteger();
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+				return new Thread(new Runnable() {
+
+					@Override
+					public void run() {
+						Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+						runnable.run();
+					}
+				}, "HttpDispatcher #" + threadCount.incrementAndGet());
+			}
+		});
+	}
+
+	/**
+	 * Returns a shared instance of the HttpDispatcher class.
+	 *
+	 * @return Returns a shared instance of the HttpDispatcher class.
+	 */
+	public static HttpDispatcher getInstance() {
+
+		synchronized (HttpDispatcher.class) {
+
+			if (sharedInstance == null) {
+				sharedInstance = new HttpDispatcher();
+			}
+		}
+
+		return sharedInstance;
+	}
+
+	/**
+	 * Gets the maximum number of requests which run at once.
+	 *
+	 * @return Returns the maximum number of requests.
+	 */
+	public synchronized int getMaxRequests() {
+		return maxRequests;
+	}
+
+	/**
+	 * Sets the maximum number of requests which run at once.
+	 *
+	 * @param maxRequests The maximum number of requests.
+	 */
+	public void setMaxRequests(int maxRequests) {
+
+		if (maxRequests < 1) {
+			throw new IllegalArgumentException("The maximum number of requests must be at least 1");
+		}
+
+		synchronized (this) {
+			this.maxRequests = maxRequests;
+		}
+
+		promoteRequests();
+	}
+
+	/**
+	 * Gets the maximum number of requests to a single host which run at once.
+	 *
+	 * @return Returns the maximum number of requests per host.
+	 */
+	public synchronized int getMaxRequestsPerHost() {
+		return maxRequestsPerHost;
+	}
+
+	/**
+	 * Sets the maximum number of requests to a single host which run at once.
+	 *
+	 * @param maxRequestsPerHost The maximum number of requests per host.
+	 */
+	public void setMaxRequestsPerHost(int maxRequestsPerHost) {
+
+		if (maxRequestsPerHost < 1) {
+			throw new IllegalArgumentException("The maximum number of requests per host must be at least 1");
+		}
+
+		synchronized (this) {
+			this.maxRequestsPerHost = maxRequestsPerHost;
+		}
+
+		promoteRequests();
+	}
+
+	/**
+	 * Gets the maximum number of requests which wait in the queue.
+	 *
+	 * @return Returns the maximum number of queued requests.
+	 */
+	public synchronized int getMaxQueuedRequests() {
+		return maxQueuedRequests;
+	}
+
+	/**
+	 * Sets the maximum number of requests which wait in the queue. Requests are rejected once the queue is full.
+	 *
+	 * @param maxQueuedRequests The maximum number of queued requests.
+	 */
+	public synchronized void setMaxQueuedRequests(int maxQueuedRequests) {
+		this.maxQueuedRequests = maxQueuedRequests;
+	}
+
+	/**
+	 * Gets the number of requests waiting to run.
+	 *
+	 * @return Returns the depth of the queue.
+	 */
+	public synchronized int getQueuedCount() {
+		return queuedCount;
+	}
+
+	/**
+	 * Gets the number of requests of a priority waiting to run.
+	 *
+	 * @param priority The priority.
+	 *
+	 * @return Returns the depth of the lane.
+	 */
+	public synchronized int getQueuedCount(RequestPriority priority) {
+		return lanes.get(priority).size();
+	}
+
+	/**
+	 * Gets the number of requests which are running.
+	 *
+	 * @return Returns the running count.
+	 */
+	public synchronized int getRunningCount() {
+		return runningCount;
+	}
+
+	/**
+	 * Gets the number of requests to a host which are running.
+	 *
+	 * @param host The host.
+	 *
+	 * @return Returns the running count of the host.
+	 */
+	public synchronized int getRunningCount(String host) {
+
+		Integer count = runningPerHost.get(host);
+
+		return count == null ? 0 : count;
+	}
+
+	/**
+	 * Gets an executor which dispatches its tasks as requests to a host, so it can be passed to
+	 * AsyncTask.executeOnExecutor.
+	 *
+	 * @param host     The host the tasks connect to.
+	 * @param priority The lane the tasks are queued in.
+	 *
+	 * @return Returns the executor.
+	 */
+	public Executor getExecutor(String host, RequestPriority priority) {
+		return getExecutor(host, priority, null);
+	}
+
+	/**
+	 * Gets an executor which dispatches its tasks as requests to a host, so it can be passed to
+	 * AsyncTask.executeOnExecutor.
+	 *
+	 * @param host         The host the tasks connect to.
+	 * @param priority     The lane the tasks are queued in.
+	 * @param dropCallback The callback run when a task is dropped from the queue, such as one which cancels the
+	 *                     AsyncTask, or null.
+	 *
+	 * @return Returns the executor.
+	 */
+	public Executor getExecutor(final String host, final RequestPriority priority, final Runnable dropCallback) {
+		return new Executor() {
+
+			@Override
+			public void execute(Runnable runnable) {
+				HttpDispatcher.this.execute(runnable, host, priority, dropCallback);
+			}
+		};
+	}
+
+	/**
+	 * Runs a request once fewer than the maximum number of requests, overall and to the host, are running.
+	 *
+	 * @param runnable The request.
+	 * @param host     The host the request connects to.
+	 * @param priority The lane the request is queued in.
+	 *
+	 * @throws RejectedExecutionException If the queue is full of requests with the same or a higher priority.
+	 */
+	public void execute(Runnable runnable, String host, RequestPriority priority) {
+		execute(runnable, host, priority, null);
+	}
+
+	/**
+	 * Runs a request once fewer than the maximum number of requests, overall and to the host, are running.
+	 *
+	 * @param runnable     The request.
+	 * @param host         The host the request connects to.
+	 * @param priority     The lane the request is queued in.
+	 * @param dropCallback The callback run when the request is dropped from the queue to make room for a request with
+	 *                     a higher priority, or null.
+	 *
+	 * @throws RejectedExecutionException If the queue is full of requests with the same or a higher priority.
+	 */
+	public void execute(Runnable runnable, String host, RequestPriority priority, Runnable dropCallback) {
+
+		DispatchedRunnable droppedRunnable = null;
+
+		synchronized (this) {
+
+			if (queuedCount >= maxQueuedRequests) {
+
+				droppedRunnable = dropLowerPriority(priority);
+
+				if (droppedRunnable == null) {
+					throw new RejectedExecutionException("The request queue is full (" + queuedCount + " requests)");
+				}
+			}
+
+			lanes.get(priority).add(new DispatchedRunnable(runnable, host == null ? "" : host, dropCallback));
+			queuedCount++;
+		}
+
+		if (droppedRunnable != null && droppedRunnable.dropCallback != null) {
+			droppedRunnable.dropCallback.run();
+		}
+
+		promoteRequests();
+	}
+
+	/**
+	 * Moves a request which has not started yet to another lane.
+	 *
+	 * @param runnable The request.
+	 * @param priority The new priority of the request.
+	 *
+	 * @return Returns true if the request was still queued.
+	 */
+	public boolean setPriority(Runnable runnable, RequestPriority priority) {
+
+		synchronized (this) {
+
+			DispatchedRunnable dispatchedRunnable = removeQueued(runnable);
+
+			if (dispatchedRunnable == null) {
+				return false;
+			}
+
+			lanes.get(priority).add(dispatchedRunnable);
+			queuedCount++;
+		}
+
+		promoteRequests();
+
+		return true;
+	}
+
+	/**
+	 * Removes a request which has not started yet from the queue.
+	 *
+	 * @param runnable The request.
+	 *
+	 * @return Returns true if the request was removed.
+	 */
+	public synchronized boolean remove(Runnable runnable) {
+		return removeQueued(runnable) != null;
+	}
+
+	private DispatchedRunnable removeQueued(Runnable runnable) {
+
+		for (ArrayDeque<DispatchedRunnable> lane : lanes.values()) {
+
+			Iterator<DispatchedRunnable> it = lane.iterator();
+
+			while (it.hasNext()) {
+
+				DispatchedRunnable dispatchedRunnable = it.next();
+
+				if (dispatchedRunnable.runnable == runnable) {
+					it.remove();
+					queuedCount--;
+					return dispatchedRunnable;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Removes the most recently queued request with the lowest priority below a priority.
+	 *
+	 * @param priority The priority of the request which needs room in the queue.
+	 *
+	 * @return Returns the removed request, or null if every queued request has the same or a higher priority.
+	 */
+	private DispatchedRunnable dropLowerPriority(RequestPriority priority) {
+
+		RequestPriority[] priorities = RequestPriority.values();
+
+		for (int i = priorities.length - 1; i > priority.ordinal(); i--) {
+
+			DispatchedRunnable droppedRunnable = lanes.get(priorities[i]).pollLast();
+
+			if (droppedRunnable != null) {
+				queuedCount--;
+				return droppedRunnable;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Starts queued requests, in priority order, while there is capacity for them.
+	 */
+	private void promoteRequests() {
+
+		synchronized (this) {
+
+			for (RequestPriority priority : RequestPriority.values()) {
+
+				Iterator<DispatchedRunnable> it = lanes.get(priority).iterator();
+				int capacity = priority == RequestPriority.PREFETCH
+						? Math.max(1, maxRequests / PREFETCH_CAPACITY_DIVISOR) : maxRequests;
+
+				while (runningCount < capacity && it.hasNext()) {
+
+					DispatchedRunnable dispatchedRunnable = it.next();
+
+					if (getRunningCount(dispatchedRunnable.host) >= maxRequestsPerHost) {
+						continue;
+					}
+
+					it.remove();
+					queuedCount--;
+					runningCount++;
+					runningPerHost.put(dispatchedRunnable.host, getRunningCount(dispatchedRunnable.host) + 1);
+
+					executor.execute(dispatchedRunnable);
+				}
+			}
+		}
+	}
+
+	private void finished(String host) {
+
+		synchronized (this) {
+
+			int count = getRunningCount(host) - 1;
+
+			if (count > 0) {
+				runningPerHost.put(host, count);
+			} else {
+				runningPerHost.remove(host);
+			}
+
+			runningCount--;
+		}
+
+		promoteRequests();
+	}
+
+	private class DispatchedRunnable implements Runnable {
+
+		private final Runnable dropCallback;
+		private final Runnable runnable;
+		private final String host;
+
+		private DispatchedRunnable(Runnable runnable, String host, Runnable dropCallback) {
+			this.runnable = runnable;
+			this.host = host;
+			this.dropCallback = dropCallback;
+		}
+
+		@Override
+		public void run() {
+			try {
+				runnable.run();
+			} finally {
+				finished(host);
+			}
+		}
+	}
+}
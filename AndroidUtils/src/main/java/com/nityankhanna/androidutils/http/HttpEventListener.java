@@ -0,0 +1,57 @@
+package com.nityankhanna.androidutils.http;
+
+/**
+ * Receives the events of every request executed by an HttpClientService, such as to collect latency metrics.
+ * <p/>
+ * Override the methods of interest; they do nothing by default. Install the listener with
+ * HttpClientService.setEventListener.
+ */
+public abstract class HttpEventListener {
+
+	/**
+	 * A method called on the calling thread when a request is queued in the HttpDispatcher.
+	 *
+	 * @param requestMessage The request message.
+	 */
+	public void onRequestQueued(HttpRequestMessage requestMessage) {
+	}
+
+	/**
+	 * A method called on the background thread when a request leaves the queue.
+	 *
+	 * @param requestMessage The request message.
+	 * @param timings        The timings so far.
+	 */
+	public void onRequestStarted(HttpRequestMessage requestMessage, HttpTimings timings) {
+	}
+
+	/**
+	 * A method called on the background thread when the headers of a response have been received, once per attempt.
+	 *
+	 * @param requestMessage The request message.
+	 * @param statusCode     The status code of the response.
+	 * @param timings        The timings so far.
+	 */
+	public void onResponseHeaders(HttpRequestMessage requestMessage, int statusCode, HttpTimings timings) {
+	}
+
+	/**
+	 * A method called on the main thread after a response has been delivered to the response listener.
+	 *
+	 * @param responseMessage The response message.
+	 * @param timings         The timings of the request.
+	 */
+	public void onRequestCompleted(HttpResponseMessage responseMessage, HttpTimings timings) {
+	}
+
+	/**
+	 * A method called on the main thread after a request which failed without a response has been delivered to the
+	 * response listener.
+	 *
+	 * @param requestMessage The request message.
+	 * @param exception      The exception which caused the failure.
+	 * @param timings        The timings of the request.
+	 */
+	public void onRequestFailed(HttpRequestMessage requestMessage, Exception exception, HttpTimings timings) {
+	}
+}
@@ -0,0 +1,503 @@
+package com.nityankhanna.androidutils.http;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents the result of an asynchronous operation, which can be transformed and combined with other results.
+ * <p/>
+ * The future returned by HttpClientService.executeRequestFuture is completed on the background thread which executed
+ * the request, so parsing and transforming the response can be chained without involving the main thread. Each step
+ * runs on the executor it was added with, or on the thread which completed the previous step if none is given.
+ * Callbacks which update views should be added with MAIN_THREAD.
+ * <p/>
+ * A future fails only when the operation fails, such as when a request fails without a response. Responses with an
+ * error status code complete the future normally.
+ *
+ * @param <T> The type of the result.
+ */
+public final class HttpFuture<T> implements Future<T> {
+
+	/**
+	 * An executor which runs steps on the main thread.
+	 */
+	public static final Executor MAIN_THREAD = new Executor() {
+
+		private final Handler handler = new Handler(Looper.getMainLooper());
+
+		@Override
+		public void execute(Runnable runnable) {
+			handler.post(runnable);
+		}
+	};
+
+	/**
+	 * An executor which runs steps on the thread which completed the previous step.
+	 */
+	public static final Executor COMPLETING_THREAD = new Executor() {
+
+		@Override
+		public void execute(Runnable runnable) {
+			runnable.run();
+		}
+	};
+
+	private final CountDownLatch completion = new CountDownLatch(1);
+	private final List<Runnable> listeners = new ArrayList<>();
+	private final List<Future<?>> upstreams = new ArrayList<>();
+	private boolean cancelled;
+	private boolean done;
+	private Throwable failure;
+	private T value;
+
+	/**
+	 * Initializes a new instance of the HttpFuture class, which is completed with complete or fail.
+	 */
+	public HttpFuture() {
+	}
+
+	/**
+	 * Creates a future which has already completed.
+	 *
+	 * @param value The result.
+	 * @param <T>   The type of the result.
+	 *
+	 * @return Returns the completed future.
+	 */
+	public static <T> HttpFuture<T> completed(T value) {
+
+		HttpFuture<T> future = new HttpFuture<>();
+		future.complete(value);
+
+		return future;
+	}
+
+	/**
+	 * Combines futures into a future of their results, which fails as soon as one of them fails.
+	 * <p/>
+	 * Cancelling the combined future cancels every future which has not completed yet.
+	 *
+	 * @param futures The futures.
+	 * @param <T>     The type of the results.
+	 *
+	 * @return Returns a future of the results, in the order of the futures.
+	 */
+	public static <T> HttpFuture<List<T>> allOf(final List<HttpFuture<T>> futures) {
+
+		final HttpFuture<List<T>> combined = new HttpFuture<>();
+
+		if (futures.isEmpty()) {
+			combined.complete(Collections.<T>emptyList());
+			return combined;
+		}
+
+		final Object[] results = new Object[futures.size()];
+		final AtomicInteger remaining = new AtomicInteger(futures.size());
+
+		for (int i = 0; i < futures.size(); i++) {
+
+			final int index = i;
+			HttpFuture<T> future = futures.get(i);
+
+			combined.addUpstream(future);
+			future.addCallback(new Callback<T>() {
+
+				@Override
+				public void onSuccess(T value) {
+
+					results[index] = value;
+
+					if (remaining.decrementAndGet() == 0) {
+						@SuppressWarnings("unchecked")
+						List<T> values = (List<T>) Arrays.asList(results);
+						combined.complete(Collections.unmodifiableList(values));
+					}
+				}
+
+				@Override
+				public void onFailure(Throwable failure) {
+					combined.fail(failure);
+				}
+			}, COMPLETING_THREAD);
+		}
+
+		return combined;
+	}
+
+	/**
+	 * Completes the future with a result.
+	 *
+	 * @param value The result.
+	 *
+	 * @return Returns false if the future has already completed.
+	 */
+	public boolean complete(T value) {
+
+		synchronized (this) {
+
+			if (done) {
+				return false;
+			}
+
+			this.value = value;
+			done = true;
+		}
+
+		finish();
+
+		return true;
+	}
+
+	/**
+	 * Fails the future.
+	 *
+	 * @param failure The cause of the failure.
+	 *
+	 * @return Returns false if the future has already completed.
+	 */
+	public boolean fail(Throwable failure) {
+
+		synchronized (this) {
+
+			if (done) {
+				return false;
+			}
+
+			this.failure = failure;
+			done = true;
+		}
+
+		finish();
+
+		return true;
+	}
+
+	/**
+	 * Transforms the result on the thread which completes this future.
+	 *
+	 * @param transformer The transformer.
+	 * @param <R>         The type of the transformed result.
+	 *
+	 * @return Returns a future of the transformed result, which fails if this future fails or the transformer throws.
+	 */
+	public <R> HttpFuture<R> then(Transformer<? super T, ? extends R> transformer) {
+		return then(transformer, COMPLETING_THREAD);
+	}
+
+	/**
+	 * Transforms the result on an executor.
+	 *
+	 * @param transformer The transformer.
+	 * @param executor    The executor the transformer runs on.
+	 * @param <R>         The type of the transformed result.
+	 *
+	 * @return Returns a future of the transformed result, which fails if this future fails or the transformer throws.
+	 */
+	public <R> HttpFuture<R> then(final Transformer<? super T, ? extends R> transformer, Executor executor) {
+
+		final HttpFuture<R> next = new HttpFuture<>();
+
+		next.addUpstream(this);
+		addListener(new Runnable() {
+
+			@Override
+			public void run() {
+
+				if (next.isDone()) {
+					return;
+				}
+
+				if (failure != null) {
+					next.fail(failure);
+					return;
+				}
+
+				try {
+					next.complete(transformer.transform(value));
+				} catch (Exception e) {
+					next.fail(e);
+				}
+			}
+		}, executor);
+
+		return next;
+	}
+
+	/**
+	 * Starts another asynchronous operation with the result, such as a request which depends on the response.
+	 *
+	 * @param transformer The transformer which starts the operation.
+	 * @param executor    The executor the transformer runs on.
+	 * @param <R>         The type of the result of the operation.
+	 *
+	 * @return Returns a future of the result of the operation.
+	 */
+	public <R> HttpFuture<R> thenCompose(final Transformer<? super T, HttpFuture<R>> transformer, Executor executor) {
+
+		final HttpFuture<R> next = new HttpFuture<>();
+
+		next.addUpstream(this);
+		addListener(new Runnable() {
+
+			@Override
+			public void run() {
+
+				if (next.isDone()) {
+					return;
+				}
+
+				if (failure != null) {
+					next.fail(failure);
+					return;
+				}
+
+				HttpFuture<R> operation;
+
+				try {
+					operation = transformer.transform(value);
+				} catch (Exception e) {
+					next.fail(e);
+					return;
+				}
+
+				next.addUpstream(operation);
+				operation.addCallback(new Callback<R>() {
+
+					@Override
+					public void onSuccess(R result) {
+						next.complete(result);
+					}
+
+					@Override
+					public void onFailure(Throwable operationFailure) {
+						next.fail(operationFailure);
+					}
+				}, COMPLETING_THREAD);
+			}
+		}, executor);
+
+		return next;
+	}
+
+	/**
+	 * Adds a callback which is notified once the future completes.
+	 *
+	 * @param callback The callback.
+	 * @param executor The executor the callback runs on, such as MAIN_THREAD.
+	 *
+	 * @return Returns this future.
+	 */
+	public HttpFuture<T> addCallback(final Callback<? super T> callback, Executor executor) {
+
+		addListener(new Runnable() {
+
+			@Override
+			public void run() {
+
+				if (failure != null) {
+					callback.onFailure(failure);
+				} else {
+					callback.onSuccess(value);
+				}
+			}
+		}, executor);
+
+		return this;
+	}
+
+	/**
+	 * Cancels the future and the operation it depends on.
+	 *
+	 * @param mayInterruptIfRunning Ignored, requests are always aborted.
+	 *
+	 * @return Returns false if the future has already completed.
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+
+		List<Future<?>> cancelledUpstreams;
+
+		synchronized (this) {
+
+			if (done) {
+				return false;
+			}
+
+			cancelled = true;
+			failure = new CancellationException("The future was cancelled");
+			done = true;
+			cancelledUpstreams = new ArrayList<>(upstreams);
+		}
+
+		for (Future<?> upstream : cancelledUpstreams) {
+			upstream.cancel(mayInterruptIfRunning);
+		}
+
+		finish();
+
+		return true;
+	}
+
+	@Override
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	@Override
+	public synchronized boolean isDone() {
+		return done;
+	}
+
+	@Override
+	public T get() throws InterruptedException, ExecutionException {
+		completion.await();
+		return getResult();
+	}
+
+	@Override
+	public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+
+		if (!completion.await(timeout, unit)) {
+			throw new TimeoutException();
+		}
+
+		return getResult();
+	}
+
+	/**
+	 * Adds an operation which is cancelled when this future is cancelled.
+	 *
+	 * @param upstream The operation.
+	 */
+	void addUpstream(Future<?> upstream) {
+
+		boolean cancelUpstream;
+
+		synchronized (this) {
+			upstreams.add(upstream);
+			cancelUpstream = cancelled;
+		}
+
+		if (cancelUpstream) {
+			upstream.cancel(true);
+		}
+	}
+
+	private synchronized T getResult() throws ExecutionException {
+
+		if (cancelled) {
+			throw new CancellationException("The future was cancelled");
+		}
+
+		if (failure != null) {
+			throw new ExecutionException(failure);
+		}
+
+		return value;
+	}
+
+	/**
+	 * Adds a listener which is run on an executor once the future completes. A listener which throws, or an executor
+	 * which rejects it, does not stop the other listeners or fail the operation which completed the future, since
+	 * listeners run with COMPLETING_THREAD are run by that operation.
+	 *
+	 * @param listener The listener.
+	 * @param executor The executor the listener runs on.
+	 */
+	private void addListener(final Runnable listener, final Executor executor) {
+
+		Runnable dispatcher = new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					executor.execute(listener);
+				} catch (RuntimeException e) {
+					e.printStackTrace();
+				}
+			}
+		};
+
+		synchronized (this) {
+
+			if (!done) {
+				listeners.add(dispatcher);
+				return;
+			}
+		}
+
+		dispatcher.run();
+	}
+
+	private void finish() {
+
+		List<Runnable> completedListeners;
+
+		synchronized (this) {
+			completedListeners = new ArrayList<>(listeners);
+			listeners.clear();
+			upstreams.clear();
+		}
+
+		completion.countDown();
+
+		for (Runnable listener : completedListeners) {
+			listener.run();
+		}
+	}
+
+	/**
+	 * An interface for transforming the result of a future.
+	 *
+	 * @param <T> The type of the result.
+	 * @param <R> The type of the transformed result.
+	 */
+	public interface Transformer<T, R> {
+
+		/**
+		 * A delegate method called with the result of the future.
+		 *
+		 * @param value The result.
+		 *
+		 * @return Returns the transformed result.
+		 *
+		 * @throws Exception If the result cannot be transformed, which fails the transformed future.
+		 */
+		R transform(T value) throws Exception;
+	}
+
+	/**
+	 * An interface for receiving the outcome of a future.
+	 *
+	 * @param <T> The type of the result.
+	 */
+	public interface Callback<T> {
+
+		/**
+		 * A delegate method called when the future completes.
+		 *
+		 * @param value The result.
+		 */
+		void onSuccess(T value);
+
+		/**
+		 * A delegate method called when the future fails or is cancelled.
+		 *
+		 * @param failure The cause of the failure, which is a CancellationException if the future was cancelled.
+		 */
+		void onFailure(Throwable failure);
+	}
+}
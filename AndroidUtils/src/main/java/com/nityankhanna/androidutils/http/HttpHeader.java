@@ -8,6 +8,9 @@ import org.apache.http.Header;
 import org.apache.http.HeaderElement;
 import org.apache.http.ParseException;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Represents an Http Header.
  */
@@ -30,6 +33,24 @@ public class HttpHeader implements Header {
 		this.value = value;
 	}
 
+	/**
+	 * Converts an array of headers to a list of HttpHeaders.
+	 *
+	 * @param headers The headers to convert.
+	 *
+	 * @return Returns a list of HttpHeaders.
+	 */
+	public static List<HttpHeader> fromHeaders(Header[] headers) {
+
+		List<HttpHeader> httpHeaders = new ArrayList<>(headers.length);
+
+		for (Header header : headers) {
+			httpHeaders.add(new HttpHeader(header.getName(), header.getValue()));
+		}
+
+		return httpHeaders;
+	}
+
 	/**
 	 * Gets the name of the header.
 	 *
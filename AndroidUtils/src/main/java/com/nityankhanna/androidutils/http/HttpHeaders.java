@@ -0,0 +1,250 @@
+package com.nityankhanna.androidutils.http;
+
+import org.apache.http.Header;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Represents an immutable, ordered set of Http headers, created with an HttpHeaders.Builder.
+ * <p/>
+ * Headers are looked up by name, ignoring case, in constant time, and a name may have several values. The headers
+ * are converted to the array sent on the wire once, so an instance can be shared by many requests, such as for
+ * default headers.
+ */
+public final class HttpHeaders {
+
+	/**
+	 * An empty set of headers.
+	 */
+	public static final HttpHeaders EMPTY = new Builder().build();
+
+	private final HttpHeader[] headers;
+	private final Map<String, List<String>> valuesByName;
+	private String canonicalForm;
+
+	private HttpHeaders(List<HttpHeader> headerList) {
+
+		headers = headerList.toArray(new HttpHeader[headerList.size()]);
+		valuesByName = new HashMap<>(headers.length * 2);
+
+		for (HttpHeader header : headers) {
+
+			String key = header.getName().toLowerCase(Locale.US);
+			List<String> values = valuesByName.get(key);
+
+			if (values == null) {
+				values = new ArrayList<>(1);
+				valuesByName.put(key, values);
+			}
+
+			values.add(header.getValue());
+		}
+
+		for (Map.Entry<String, List<String>> entry : valuesByName.entrySet()) {
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+	}
+
+	/**
+	 * Gets the first value of a header.
+	 *
+	 * @param name The name of the header, in any case.
+	 *
+	 * @return Returns the value, or null if there is no header with the name.
+	 */
+	public String get(String name) {
+
+		List<String> values = valuesByName.get(name.toLowerCase(Locale.US));
+
+		return values == null ? null : values.get(0);
+	}
+
+	/**
+	 * Gets every value of a header, in the order they were added.
+	 *
+	 * @param name The name of the header, in any case.
+	 *
+	 * @return Returns the values, which are empty if there is no header with the name.
+	 */
+	public List<String> getAll(String name) {
+
+		List<String> values = valuesByName.get(name.toLowerCase(Locale.US));
+
+		return values == null ? Collections.<String>emptyList() : values;
+	}
+
+	/**
+	 * Checks if there is a header with a name.
+	 *
+	 * @param name The name of the header, in any case.
+	 *
+	 * @return Returns true if there is a header with the name.
+	 */
+	public boolean contains(String name) {
+		return valuesByName.containsKey(name.toLowerCase(Locale.US));
+	}
+
+	/**
+	 * Gets the number of headers.
+	 *
+	 * @return Returns the number of headers, counting every value.
+	 */
+	public int size() {
+		return headers.length;
+	}
+
+	/**
+	 * Checks if there are no headers.
+	 *
+	 * @return Returns true if there are no headers.
+	 */
+	public boolean isEmpty() {
+		return headers.length == 0;
+	}
+
+	/**
+	 * Gets the headers as a list.
+	 *
+	 * @return Returns an unmodifiable list of the headers.
+	 */
+	public List<HttpHeader> toList() {
+		return Collections.unmodifiableList(Arrays.asList(headers));
+	}
+
+	/**
+	 * Creates a builder initialized with these headers.
+	 *
+	 * @return Returns the builder.
+	 */
+	public Builder newBuilder() {
+		return new Builder().addAll(this);
+	}
+
+	/**
+	 * Gets the headers in the form they are sent on the wire. The array is shared and must not be modified.
+	 *
+	 * @return Returns the headers.
+	 */
+	Header[] getHeaderArray() {
+		return headers;
+	}
+
+	/**
+	 * Gets the headers sorted by lower case name, one "name:value" line per header, used to compare requests.
+	 *
+	 * @return Returns the canonical form.
+	 */
+	String getCanonicalForm() {
+
+		if (canonicalForm == null) {
+
+			List<String> headerLines = new ArrayList<>(headers.length);
+
+			for (HttpHeader header : headers) {
+				headerLines.add(header.getName().toLowerCase(Locale.US) + ":" + header.getValue());
+			}
+
+			Collections.sort(headerLines);
+
+			StringBuilder builder = new StringBuilder();
+
+			for (String headerLine : headerLines) {
+				builder.append('\n').append(headerLine);
+			}
+
+			canonicalForm = builder.toString();
+		}
+
+		return canonicalForm;
+	}
+
+	@Override
+	public String toString() {
+		return "HttpHeaders" + Arrays.toString(headers);
+	}
+
+	/**
+	 * Builds an immutable set of headers.
+	 */
+	public static final class Builder {
+
+		private final List<HttpHeader> headers = new ArrayList<>();
+
+		/**
+		 * Adds a header, keeping any other value of the header.
+		 *
+		 * @param name  The name.
+		 * @param value The value.
+		 *
+		 * @return Returns the builder.
+		 */
+		public Builder add(String name, String value) {
+
+			if (name == null || value == null) {
+				throw new IllegalArgumentException("The name and value of a header cannot be null");
+			}
+
+			headers.add(new HttpHeader(name, value));
+
+			return this;
+		}
+
+		/**
+		 * Sets a header, replacing every other value of the header.
+		 *
+		 * @param name  The name.
+		 * @param value The value.
+		 *
+		 * @return Returns the builder.
+		 */
+		public Builder set(String name, String value) {
+			remove(name);
+			return add(name, value);
+		}
+
+		/**
+		 * Adds every header of a set of headers.
+		 *
+		 * @param httpHeaders The headers.
+		 *
+		 * @return Returns the builder.
+		 */
+		public Builder addAll(HttpHeaders httpHeaders) {
+			headers.addAll(Arrays.asList(httpHeaders.headers));
+			return this;
+		}
+
+		/**
+		 * Removes every value of a header.
+		 *
+		 * @param name The name of the header, in any case.
+		 *
+		 * @return Returns the builder.
+		 */
+		public Builder remove(String name) {
+
+			for (int i = headers.size() - 1; i >= 0; i--) {
+				if (headers.get(i).getName().equalsIgnoreCase(name)) {
+					headers.remove(i);
+				}
+			}
+
+			return this;
+		}
+
+		/**
+		 * Creates the headers.
+		 *
+		 * @return Returns the headers.
+		 */
+		public HttpHeaders build() {
+			return new HttpHeaders(headers);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.nityankhanna.androidutils.http;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.io.IOException;
+
+/**
+ * Observes, modifies or short-circuits the requests executed by every HttpClientService, such as to add
+ * authentication, log or measure requests.
+ * <p/>
+ * Interceptors are added with HttpClientService.addInterceptor or addNetworkInterceptor and run on the background
+ * thread of the request.
+ */
+public interface HttpInterceptor {
+
+	/**
+	 * Intercepts a request. Implementations call chain.proceed to continue with the next interceptor, or return a
+	 * response of their own.
+	 *
+	 * @param chain The chain.
+	 *
+	 * @return Returns the response, which must not be null.
+	 *
+	 * @throws IOException
+	 */
+	HttpResponse intercept(Chain chain) throws IOException;
+
+	/**
+	 * Represents the rest of the interceptor chain.
+	 */
+	interface Chain {
+
+		/**
+		 * Gets the request message the request was created from.
+		 *
+		 * @return Returns the request message.
+		 */
+		HttpRequestMessage getRequestMessage();
+
+		/**
+		 * Gets the request.
+		 *
+		 * @return Returns the request.
+		 */
+		HttpUriRequest getRequest();
+
+		/**
+		 * Checks if the chain runs around a single attempt sent to the transport.
+		 *
+		 * @return Returns true for network interceptors, false for application interceptors.
+		 */
+		boolean isNetwork();
+
+		/**
+		 * Continues with the next interceptor, or executes the request if this is the last one.
+		 *
+		 * @param request The request, which may be the original or a modified one.
+		 *
+		 * @return Returns the response.
+		 *
+		 * @throws IOException
+		 */
+		HttpResponse proceed(HttpUriRequest request) throws IOException;
+	}
+}
@@ -0,0 +1,242 @@
+package com.nityankhanna.androidutils.http;
+
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.message.BasicNameValuePair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents an immutable, ordered set of Http parameters, created with an HttpParameters.Builder.
+ * <p/>
+ * Parameters are looked up by name in constant time and a name may have several values. The url encoded form of the
+ * parameters is created once per encoding, so an instance can be shared by many requests.
+ */
+public final class HttpParameters {
+
+	/**
+	 * An empty set of parameters.
+	 */
+	public static final HttpParameters EMPTY = new Builder().build();
+
+	private final HttpParameter[] parameters;
+	private final Map<String, List<String>> valuesByName;
+	private final Map<String, String> encodedForms = new HashMap<>(2);
+
+	private HttpParameters(List<HttpParameter> parameterList) {
+
+		parameters = parameterList.toArray(new HttpParameter[parameterList.size()]);
+		valuesByName = new HashMap<>(parameters.length * 2);
+
+		for (HttpParameter parameter : parameters) {
+
+			List<String> values = valuesByName.get(parameter.getName());
+
+			if (values == null) {
+				values = new ArrayList<>(1);
+				valuesByName.put(parameter.getName(), values);
+			}
+
+			values.add(parameter.getValue());
+		}
+
+		for (Map.Entry<String, List<String>> entry : valuesByName.entrySet()) {
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+	}
+
+	/**
+	 * Gets the first value of a parameter.
+	 *
+	 * @param name The name of the parameter.
+	 *
+	 * @return Returns the value, or null if there is no parameter with the name.
+	 */
+	public String get(String name) {
+
+		List<String> values = valuesByName.get(name);
+
+		return values == null ? null : values.get(0);
+	}
+
+	/**
+	 * Gets every value of a parameter, in the order they were added.
+	 *
+	 * @param name The name of the parameter.
+	 *
+	 * @return Returns the values, which are empty if there is no parameter with the name.
+	 */
+	public List<String> getAll(String name) {
+
+		List<String> values = valuesByName.get(name);
+
+		return values == null ? Collections.<String>emptyList() : values;
+	}
+
+	/**
+	 * Checks if there is a parameter with a name.
+	 *
+	 * @param name The name of the parameter.
+	 *
+	 * @return Returns true if there is a parameter with the name.
+	 */
+	public boolean contains(String name) {
+		return valuesByName.containsKey(name);
+	}
+
+	/**
+	 * Gets the number of parameters.
+	 *
+	 * @return Returns the number of parameters, counting every value.
+	 */
+	public int size() {
+		return parameters.length;
+	}
+
+	/**
+	 * Checks if there are no parameters.
+	 *
+	 * @return Returns true if there are no parameters.
+	 */
+	public boolean isEmpty() {
+		return parameters.length == 0;
+	}
+
+	/**
+	 * Gets the parameters as a list.
+	 *
+	 * @return Returns an unmodifiable list of the parameters.
+	 */
+	public List<HttpParameter> toList() {
+		return Collections.unmodifiableList(Arrays.asList(parameters));
+	}
+
+	/**
+	 * Creates a builder initialized with these parameters.
+	 *
+	 * @return Returns the builder.
+	 */
+	public Builder newBuilder() {
+		return new Builder().addAll(this);
+	}
+
+	/**
+	 * Gets the parameters in the application/x-www-form-urlencoded form, which is created once per encoding.
+	 *
+	 * @param encoding The encoding.
+	 *
+	 * @return Returns the encoded parameters.
+	 */
+	public String toUrlEncodedForm(Encoding encoding) {
+
+		String charset = encoding == null ? Encoding.UTF_8.getValue() : encoding.getValue();
+
+		synchronized (encodedForms) {
+
+			String encodedForm = encodedForms.get(charset);
+
+			if (encodedForm == null) {
+
+				List<NameValuePair> pairs = new ArrayList<>(parameters.length);
+
+				for (HttpParameter parameter : parameters) {
+					pairs.add(new BasicNameValuePair(parameter.getName(), parameter.getValue()));
+				}
+
+				encodedForm = URLEncodedUtils.format(pairs, charset);
+				encodedForms.put(charset, encodedForm);
+			}
+
+			return encodedForm;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "HttpParameters" + Arrays.toString(parameters);
+	}
+
+	/**
+	 * Builds an immutable set of parameters.
+	 */
+	public static final class Builder {
+
+		private final List<HttpParameter> parameters = new ArrayList<>();
+
+		/**
+		 * Adds a parameter, keeping any other value of the parameter.
+		 *
+		 * @param name  The name.
+		 * @param value The value.
+		 *
+		 * @return Returns the builder.
+		 */
+		public Builder add(String name, String value) {
+
+			if (name == null || value == null) {
+				throw new IllegalArgumentException("The name and value of a parameter cannot be null");
+			}
+
+			parameters.add(new HttpParameter(name, value));
+
+			return this;
+		}
+
+		/**
+		 * Sets a parameter, replacing every other value of the parameter.
+		 *
+		 * @param name  The name.
+		 * @param value The value.
+		 *
+		 * @return Returns the builder.
+		 */
+		public Builder set(String name, String value) {
+			remove(name);
+			return add(name, value);
+		}
+
+		/**
+		 * Adds every parameter of a set of parameters.
+		 *
+		 * @param httpParameters The parameters.
+		 *
+		 * @return Returns the builder.
+		 */
+		public Builder addAll(HttpParameters httpParameters) {
+			parameters.addAll(Arrays.asList(httpParameters.parameters));
+			return this;
+		}
+
+		/**
+		 * Removes every value of a parameter.
+		 *
+		 * @param name The name of the parameter.
+		 *
+		 * @return Returns the builder.
+		 */
+		public Builder remove(String name) {
+
+			for (int i = parameters.size() - 1; i >= 0; i--) {
+				if (parameters.get(i).getName().equals(name)) {
+					parameters.remove(i);
+				}
+			}
+
+			return this;
+		}
+
+		/**
+		 * Creates the parameters.
+		 *
+		 * @return Returns the parameters.
+		 */
+		public HttpParameters build() {
+			return new HttpParameters(parameters);
+		}
+	}
+}
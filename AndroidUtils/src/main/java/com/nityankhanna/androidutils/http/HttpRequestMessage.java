@@ -1,9 +1,12 @@
 package com.nityankhanna.androidutils.http;
 
+import org.apache.http.HttpEntity;
+
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by Nityan Khanna on Jan 18 2014.
@@ -14,11 +17,24 @@ import java.util.List;
  */
 public final class HttpRequestMessage extends HttpRequest {
 
+	private boolean coalescingEnabled = true;
+	private long connectTimeoutMillis = -1;
 	private ContentType contentType;
+	private long deadlineMillis = -1;
 	private Encoding encoding;
+	private HttpEntity entity;
 	private List<HttpHeader> headers;
+	private JsonBodyWriter jsonBody;
 	private List<HttpParameter> params;
+	private RequestPriority priority = RequestPriority.NORMAL;
 	private RequestType requestType;
+	private ResponseBodyHandler responseBodyHandler;
+	private ResponseConverter<?> responseConverter;
+	private RetryPolicy retryPolicy;
+	private HttpHeaders sharedHeaders = HttpHeaders.EMPTY;
+	private HttpParameters sharedParameters = HttpParameters.EMPTY;
+	private long socketTimeoutMillis = -1;
+	private Object tag;
 	private String url;
 
 	/**
@@ -226,6 +242,43 @@ public final class HttpRequestMessage extends HttpRequest {
 		}
 	}
 
+	/**
+	 * Gets the shared headers, which are sent before the headers of the request.
+	 *
+	 * @return Returns the shared headers.
+	 */
+	public HttpHeaders getSharedHeaders() {
+		return sharedHeaders;
+	}
+
+	/**
+	 * Sets an immutable set of headers sent before the headers of the request, such as default headers shared by
+	 * many requests.
+	 *
+	 * @param sharedHeaders The shared headers.
+	 */
+	public void setSharedHeaders(HttpHeaders sharedHeaders) {
+		this.sharedHeaders = sharedHeaders == null ? HttpHeaders.EMPTY : sharedHeaders;
+	}
+
+	/**
+	 * Gets the shared parameters, which are sent before the parameters of the request.
+	 *
+	 * @return Returns the shared parameters.
+	 */
+	public HttpParameters getSharedParameters() {
+		return sharedParameters;
+	}
+
+	/**
+	 * Sets an immutable set of parameters sent before the parameters of the request.
+	 *
+	 * @param sharedParameters The shared parameters.
+	 */
+	public void setSharedParameters(HttpParameters sharedParameters) {
+		this.sharedParameters = sharedParameters == null ? HttpParameters.EMPTY : sharedParameters;
+	}
+
 	/**
 	 * Checks if the Http message contains headers.
 	 *
@@ -233,7 +286,7 @@ public final class HttpRequestMessage extends HttpRequest {
 	 */
 	@Override
 	public boolean containsHeaders() {
-		return headers.size() > 0;
+		return headers.size() > 0 || !sharedHeaders.isEmpty();
 	}
 
 	/**
@@ -243,7 +296,7 @@ public final class HttpRequestMessage extends HttpRequest {
 	 */
 	@Override
 	public boolean containsParameters() {
-		return params.size() > 0;
+		return params.size() > 0 || !sharedParameters.isEmpty();
 	}
 
 	/**
@@ -265,4 +318,219 @@ public final class HttpRequestMessage extends HttpRequest {
 	public Encoding getEncoding() {
 		return encoding;
 	}
+
+	/**
+	 * Gets the handler which streams the response body on the background thread.
+	 *
+	 * @return Returns the response body handler, or null if the body is buffered.
+	 */
+	public ResponseBodyHandler getResponseBodyHandler() {
+		return responseBodyHandler;
+	}
+
+	/**
+	 * Sets a handler to stream the response body on the background thread instead of buffering it in memory.
+	 *
+	 * @param responseBodyHandler The response body handler.
+	 */
+	public void setResponseBodyHandler(ResponseBodyHandler responseBodyHandler) {
+		this.responseBodyHandler = responseBodyHandler;
+	}
+
+	/**
+	 * Gets the converter which decodes the response body on the background thread.
+	 *
+	 * @return Returns the response converter, or null if the body is not decoded.
+	 */
+	public ResponseConverter<?> getResponseConverter() {
+		return responseConverter;
+	}
+
+	/**
+	 * Sets a converter to decode the body of successful responses on the background thread. The decoded body is
+	 * available from getConvertedBody of the response. It is not used when there is a response body handler.
+	 *
+	 * @param responseConverter The response converter.
+	 */
+	public void setResponseConverter(ResponseConverter<?> responseConverter) {
+		this.responseConverter = responseConverter;
+	}
+
+	/**
+	 * Gets the body of the request.
+	 *
+	 * @return Returns the entity, or null if the body is created from the parameters.
+	 */
+	public HttpEntity getEntity() {
+		return entity;
+	}
+
+	/**
+	 * Sets the body of a POST or PUT request in place of the parameters. The entity should be repeatable, otherwise the
+	 * request is not retried.
+	 *
+	 * @param entity The entity.
+	 */
+	public void setEntity(HttpEntity entity) {
+		this.entity = entity;
+	}
+
+	/**
+	 * Gets the writer which streams a JSON body in place of the parameters.
+	 *
+	 * @return Returns the JSON body writer, or null if the parameters are sent.
+	 */
+	public JsonBodyWriter getJsonBody() {
+		return jsonBody;
+	}
+
+	/**
+	 * Sets a writer to stream a JSON body in place of the parameters, for bodies which are nested or too large to build in memory.
+	 * <p/>
+	 * This is used for POST and PUT requests with a JSON content type.
+	 *
+	 * @param jsonBody The JSON body writer.
+	 */
+	public void setJsonBody(JsonBodyWriter jsonBody) {
+		this.jsonBody = jsonBody;
+	}
+
+	/**
+	 * Checks if the request may share a response with identical GET requests which are already in flight.
+	 *
+	 * @return Returns true if the request may be coalesced.
+	 */
+	public boolean isCoalescingEnabled() {
+		return coalescingEnabled;
+	}
+
+	/**
+	 * Sets whether the request may share a response with identical GET requests which are already in flight.
+	 * <p/>
+	 * This is enabled by default. Requests only share a response if they also have the same response converter, retry
+	 * policy, timeouts and deadline.
+	 *
+	 * @param coalescingEnabled True to allow the request to be coalesced.
+	 */
+	public void setCoalescingEnabled(boolean coalescingEnabled) {
+		this.coalescingEnabled = coalescingEnabled;
+	}
+
+	/**
+	 * Gets the priority of the request.
+	 *
+	 * @return Returns the priority.
+	 */
+	public RequestPriority getPriority() {
+		return priority;
+	}
+
+	/**
+	 * Sets the priority the request is queued with in the HttpDispatcher.
+	 *
+	 * @param priority The priority.
+	 */
+	public void setPriority(RequestPriority priority) {
+
+		if (priority == null) {
+			throw new IllegalArgumentException("The priority cannot be null");
+		}
+
+		this.priority = priority;
+	}
+
+	/**
+	 * Gets the tag of the request.
+	 *
+	 * @return Returns the tag, or null if the request is not tagged.
+	 */
+	public Object getTag() {
+		return tag;
+	}
+
+	/**
+	 * Sets the tag of the request. Every request with the same tag can be cancelled with HttpClientService.cancelAll.
+	 *
+	 * @param tag The tag, such as the activity or fragment which made the request.
+	 */
+	public void setTag(Object tag) {
+		this.tag = tag;
+	}
+
+	/**
+	 * Gets the retry policy of the request.
+	 *
+	 * @return Returns the retry policy, or null if the default retry policy is used.
+	 */
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * Sets the retry policy of the request, in place of the default retry policy of HttpClientService.
+	 *
+	 * @param retryPolicy The retry policy.
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
+
+	/**
+	 * Gets the time allowed to establish a connection.
+	 *
+	 * @return Returns the connect timeout in milliseconds, or -1 to use the default of HttpConnectionManager.
+	 */
+	public long getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	/**
+	 * Sets the time allowed to establish a connection.
+	 *
+	 * @param duration The duration, or 0 to wait indefinitely.
+	 * @param unit     The time unit of the duration.
+	 */
+	public void setConnectTimeout(long duration, TimeUnit unit) {
+		this.connectTimeoutMillis = unit.toMillis(duration);
+	}
+
+	/**
+	 * Gets the time allowed between two packets of the response.
+	 *
+	 * @return Returns the socket timeout in milliseconds, or -1 to use the default of HttpConnectionManager.
+	 */
+	public long getSocketTimeoutMillis() {
+		return socketTimeoutMillis;
+	}
+
+	/**
+	 * Sets the time allowed between two packets of the response.
+	 *
+	 * @param duration The duration, or 0 to wait indefinitely.
+	 * @param unit     The time unit of the duration.
+	 */
+	public void setSocketTimeout(long duration, TimeUnit unit) {
+		this.socketTimeoutMillis = unit.toMillis(duration);
+	}
+
+	/**
+	 * Gets the total time allowed for the request, from being executed to its response being read, including retries.
+	 *
+	 * @return Returns the deadline in milliseconds, or -1 to use the default deadline of HttpClientService.
+	 */
+	public long getDeadlineMillis() {
+		return deadlineMillis;
+	}
+
+	/**
+	 * Sets the total time allowed for the request, from being executed to its response being read, including retries.
+	 * <p/>
+	 * The request is aborted once the deadline passes, freeing its thread.
+	 *
+	 * @param duration The duration, or 0 for no deadline.
+	 * @param unit     The time unit of the duration.
+	 */
+	public void setDeadline(long duration, TimeUnit unit) {
+		this.deadlineMillis = unit.toMillis(duration);
+	}
 }
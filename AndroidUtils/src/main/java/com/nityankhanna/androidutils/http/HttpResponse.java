@@ -11,6 +11,8 @@ public abstract class HttpResponse implements HttpMessage {
 
 	protected abstract void setContentType(ContentType contentType);
 
+	public abstract ResponseBody getBody();
+
 	public abstract HttpEntity getEntity();
 
 	protected abstract void setEntity(HttpEntity entity);
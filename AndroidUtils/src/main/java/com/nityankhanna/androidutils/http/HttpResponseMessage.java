@@ -2,6 +2,7 @@ package com.nityankhanna.androidutils.http;
 
 import org.apache.http.HttpEntity;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -13,14 +14,19 @@ import java.util.List;
  */
 public final class HttpResponseMessage extends HttpResponse {
 
+	private ResponseBody body;
+	private CompressionStats compressionStats = new CompressionStats();
 	private ContentType contentType;
+	private Object convertedBody;
 	private HttpEntity entity;
 	private ErrorResponse error;
 	private List<HttpHeader> headers;
 	private List<HttpParameter> parameters;
 	private String reasonPhrase;
 	private HttpRequestMessage requestMessage;
+	private ResponseSource responseSource = ResponseSource.NETWORK;
 	private int statusCode;
+	private HttpTimings timings = new HttpTimings();
 
 	/**
 	 * Initializes a new instance of the HttpResponseMessage class with a status code and reason phrase.
@@ -58,6 +64,31 @@ public final class HttpResponseMessage extends HttpResponse {
 		this.headers = headers;
 	}
 
+	/**
+	 * Creates a copy of the response for another request which shared it.
+	 * <p/>
+	 * The body is shared, so this is only used for buffered responses.
+	 *
+	 * @param requestMessage The request message of the copy.
+	 *
+	 * @return Returns the copy.
+	 */
+	HttpResponseMessage copy(HttpRequestMessage requestMessage) {
+
+		HttpResponseMessage copy = new HttpResponseMessage(statusCode, reasonPhrase, entity,
+				headers == null ? null : new ArrayList<>(headers));
+
+		copy.contentType = contentType;
+		copy.convertedBody = convertedBody;
+		copy.error = error;
+		copy.compressionStats = compressionStats;
+		copy.responseSource = responseSource;
+		copy.timings = timings;
+		copy.requestMessage = requestMessage;
+
+		return copy;
+	}
+
 	/**
 	 * Sets the content type.
 	 *
@@ -68,6 +99,87 @@ public final class HttpResponseMessage extends HttpResponse {
 		this.contentType = contentType;
 	}
 
+	/**
+	 * Gets the body decoded by the response converter of the request.
+	 *
+	 * @param <T> The type of the decoded body.
+	 *
+	 * @return Returns the decoded body, or null if the request has no response converter or was not successful.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getConvertedBody() {
+		return (T) convertedBody;
+	}
+
+	/**
+	 * Sets the decoded body.
+	 *
+	 * @param convertedBody The decoded body.
+	 */
+	void setConvertedBody(Object convertedBody) {
+		this.convertedBody = convertedBody;
+	}
+
+	/**
+	 * Gets the body.
+	 *
+	 * @return Returns the body.
+	 */
+	@Override
+	public ResponseBody getBody() {
+
+		if (body == null) {
+			body = new ResponseBody(entity);
+		}
+
+		return body;
+	}
+
+	/**
+	 * Sets the body.
+	 *
+	 * @param body The body.
+	 */
+	void setBody(ResponseBody body) {
+		this.body = body;
+	}
+
+	/**
+	 * Gets the number of bytes sent and received for the request, before and after compression.
+	 *
+	 * @return Returns the compression statistics.
+	 */
+	public CompressionStats getCompressionStats() {
+		return compressionStats;
+	}
+
+	/**
+	 * Sets the compression statistics.
+	 *
+	 * @param compressionStats The compression statistics.
+	 */
+	void setCompressionStats(CompressionStats compressionStats) {
+		this.compressionStats = compressionStats;
+	}
+
+	/**
+	 * Gets where the time of the request was spent.
+	 *
+	 * @return Returns the timings.
+	 */
+	public HttpTimings getTimings() {
+		return timings;
+	}
+
+	/**
+	 * Sets the timings.
+	 *
+	 * @param timings The timings.
+	 */
+	void setTimings(HttpTimings timings) {
+		this.timings = timings;
+	}
+
 	/**
 	 * Gets the entity.
 	 *
@@ -86,6 +198,7 @@ public final class HttpResponseMessage extends HttpResponse {
 	@Override
 	protected void setEntity(HttpEntity entity) {
 		this.entity = entity;
+		this.body = null;
 	}
 
 	/**
@@ -148,6 +261,24 @@ public final class HttpResponseMessage extends HttpResponse {
 		this.requestMessage = requestMessage;
 	}
 
+	/**
+	 * Gets where the response came from.
+	 *
+	 * @return Returns the response source.
+	 */
+	public ResponseSource getResponseSource() {
+		return responseSource;
+	}
+
+	/**
+	 * Sets where the response came from.
+	 *
+	 * @param responseSource The response source.
+	 */
+	void setResponseSource(ResponseSource responseSource) {
+		this.responseSource = responseSource;
+	}
+
 	/**
 	 * Gets the status code.
 	 *
@@ -0,0 +1,179 @@
+package com.nityankhanna.androidutils.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents where the time of a request was spent.
+ * <p/>
+ * The DNS, connect and TLS handshake times add up every connection opened for the request, and are 0 when a pooled
+ * connection was reused or the transport does not report them. The time to first byte and the body transfer time are
+ * those of the last attempt.
+ */
+public final class HttpTimings {
+
+	private long queuedAtNanos = -1;
+	private long startedAtNanos = -1;
+	private long completedAtNanos = -1;
+	private long dispatchedAtNanos = -1;
+	private long dnsNanos;
+	private long connectNanos;
+	private long tlsHandshakeNanos;
+	private long attemptStartNanos = -1;
+	private long attemptConnectionNanos;
+	private long timeToFirstByteNanos;
+	private long bodyTransferNanos;
+	private int attemptCount;
+	private int connectionCount;
+	private boolean connectionReused;
+
+	/**
+	 * Gets the time the request waited in the queue of the HttpDispatcher.
+	 *
+	 * @return Returns the time in milliseconds.
+	 */
+	public long getQueueWaitMillis() {
+		return millisBetween(queuedAtNanos, startedAtNanos);
+	}
+
+	/**
+	 * Gets the time spent resolving host names.
+	 *
+	 * @return Returns the time in milliseconds.
+	 */
+	public long getDnsMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(dnsNanos);
+	}
+
+	/**
+	 * Gets the time spent establishing TCP connections.
+	 *
+	 * @return Returns the time in milliseconds.
+	 */
+	public long getConnectMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(connectNanos);
+	}
+
+	/**
+	 * Gets the time spent in TLS handshakes.
+	 *
+	 * @return Returns the time in milliseconds.
+	 */
+	public long getTlsHandshakeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(tlsHandshakeNanos);
+	}
+
+	/**
+	 * Gets the time from sending the request, once connected, to receiving the response headers.
+	 *
+	 * @return Returns the time in milliseconds.
+	 */
+	public long getTimeToFirstByteMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(timeToFirstByteNanos);
+	}
+
+	/**
+	 * Gets the time spent reading the response body.
+	 *
+	 * @return Returns the time in milliseconds.
+	 */
+	public long getBodyTransferMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(bodyTransferNanos);
+	}
+
+	/**
+	 * Gets the time from the response being ready to it being delivered to the response listener on the main thread.
+	 *
+	 * @return Returns the time in milliseconds.
+	 */
+	public long getDispatchMillis() {
+		return millisBetween(completedAtNanos, dispatchedAtNanos);
+	}
+
+	/**
+	 * Gets the time from the request being executed to the response being delivered.
+	 *
+	 * @return Returns the time in milliseconds.
+	 */
+	public long getTotalMillis() {
+		return millisBetween(queuedAtNanos, dispatchedAtNanos != -1 ? dispatchedAtNanos : completedAtNanos);
+	}
+
+	/**
+	 * Gets the number of attempts, including retries.
+	 *
+	 * @return Returns the attempt count.
+	 */
+	public int getAttemptCount() {
+		return attemptCount;
+	}
+
+	/**
+	 * Gets the number of connections opened for the request.
+	 *
+	 * @return Returns the connection count.
+	 */
+	public int getConnectionCount() {
+		return connectionCount;
+	}
+
+	/**
+	 * Checks if the last attempt reused a pooled connection.
+	 *
+	 * @return Returns true if no connection was opened for the last attempt.
+	 */
+	public boolean isConnectionReused() {
+		return connectionReused;
+	}
+
+	@Override
+	public String toString() {
+		return "queue=" + getQueueWaitMillis() + "ms dns=" + getDnsMillis() + "ms connect=" + getConnectMillis()
+				+ "ms tls=" + getTlsHandshakeMillis() + "ms ttfb=" + getTimeToFirstByteMillis() + "ms body="
+				+ getBodyTransferMillis() + "ms dispatch=" + getDispatchMillis() + "ms total=" + getTotalMillis() + "ms";
+	}
+
+	void markQueued() {
+		queuedAtNanos = System.nanoTime();
+	}
+
+	void markStarted() {
+		startedAtNanos = System.nanoTime();
+	}
+
+	void markAttemptStarted() {
+		attemptCount++;
+		attemptStartNanos = System.nanoTime();
+		attemptConnectionNanos = 0;
+		connectionReused = true;
+		bodyTransferNanos = 0;
+	}
+
+	void markConnected(long dnsNanos, long connectNanos, long tlsHandshakeNanos) {
+		this.dnsNanos += dnsNanos;
+		this.connectNanos += connectNanos;
+		this.tlsHandshakeNanos += tlsHandshakeNanos;
+		attemptConnectionNanos += dnsNanos + connectNanos + tlsHandshakeNanos;
+		connectionCount++;
+		connectionReused = false;
+	}
+
+	void markHeadersReceived() {
+		timeToFirstByteNanos = Math.max(0, System.nanoTime() - attemptStartNanos - attemptConnectionNanos);
+	}
+
+	void addBodyTransfer(long nanos) {
+		bodyTransferNanos += nanos;
+	}
+
+	void markCompleted() {
+		completedAtNanos = System.nanoTime();
+	}
+
+	void markDispatched() {
+		dispatchedAtNanos = System.nanoTime();
+	}
+
+	private static long millisBetween(long startNanos, long endNanos) {
+		return startNanos == -1 || endNanos == -1 ? 0 : TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos);
+	}
+}
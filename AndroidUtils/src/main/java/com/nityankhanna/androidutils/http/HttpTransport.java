@@ -0,0 +1,28 @@
+package com.nityankhanna.androidutils.http;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+
+/**
+ * Represents the transport which sends the requests of every HttpClientService over the network.
+ * <p/>
+ * A transport must honour the connect and socket timeouts set on the parameters of the request, and must abort the
+ * exchange when the request is aborted.
+ */
+public interface HttpTransport {
+
+	/**
+	 * Executes a request.
+	 *
+	 * @param request The request to execute.
+	 * @param context The context of the request, which holds the CompressionStats of the request.
+	 *
+	 * @return Returns the response, whose entity streams the body from the network.
+	 *
+	 * @throws IOException
+	 */
+	HttpResponse execute(HttpUriRequest request, HttpContext context) throws IOException;
+}
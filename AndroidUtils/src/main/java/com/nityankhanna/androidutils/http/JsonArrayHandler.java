@@ -0,0 +1,94 @@
+package com.nityankhanna.androidutils.http;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * A response body handler which reads a JSON array one element at a time.
+ * <p/>
+ * Only a single element is held in memory at once, so peak memory does not depend on the length of the array.
+ *
+ * @param <T> The type of the elements.
+ */
+public abstract class JsonArrayHandler<T> extends JsonResponseHandler {
+
+	private final JsonObjectReader<T> elementReader;
+	private final String arrayName;
+
+	/**
+	 * Initializes a new instance of the JsonArrayHandler class for a body which is a JSON array.
+	 *
+	 * @param elementReader The reader used to read each element.
+	 */
+	public JsonArrayHandler(JsonObjectReader<T> elementReader) {
+		this(elementReader, null);
+	}
+
+	/**
+	 * Initializes a new instance of the JsonArrayHandler class for a body which is a JSON object containing an array.
+	 *
+	 * @param elementReader The reader used to read each element.
+	 * @param arrayName     The name of the array in the top level object.
+	 */
+	public JsonArrayHandler(JsonObjectReader<T> elementReader, String arrayName) {
+		this.elementReader = elementReader;
+		this.arrayName = arrayName;
+	}
+
+	@Override
+	protected final void onJson(HttpResponseMessage response, JsonReader reader) throws IOException {
+
+		if (reader.peek() == JsonToken.BEGIN_OBJECT && arrayName != null) {
+
+			reader.beginObject();
+
+			while (reader.hasNext()) {
+
+				if (arrayName.equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+					readArray(reader);
+				} else {
+					reader.skipValue();
+				}
+			}
+
+			reader.endObject();
+		} else if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+			readArray(reader);
+		} else {
+			reader.skipValue();
+		}
+
+		onArrayEnd(response);
+	}
+
+	private void readArray(JsonReader reader) throws IOException {
+
+		int index = 0;
+
+		reader.beginArray();
+
+		while (reader.hasNext()) {
+			onElement(elementReader.read(reader), index++);
+		}
+
+		reader.endArray();
+	}
+
+	/**
+	 * A delegate method called on the background thread for each element of the array.
+	 *
+	 * @param element The element.
+	 * @param index   The index of the element in the array.
+	 */
+	protected abstract void onElement(T element, int index);
+
+	/**
+	 * A delegate method called on the background thread once the whole body has been read.
+	 *
+	 * @param response The response.
+	 */
+	protected void onArrayEnd(HttpResponseMessage response) {
+	}
+}
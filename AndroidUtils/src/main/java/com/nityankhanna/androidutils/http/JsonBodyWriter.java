@@ -0,0 +1,22 @@
+package com.nityankhanna.androidutils.http;
+
+import android.util.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * An interface for writing a JSON request body directly to the connection.
+ */
+public interface JsonBodyWriter {
+
+	/**
+	 * Writes the body.
+	 * <p/>
+	 * This may be called more than once if the request is retried.
+	 *
+	 * @param writer The JSON writer.
+	 *
+	 * @throws IOException
+	 */
+	void write(JsonWriter writer) throws IOException;
+}
@@ -0,0 +1,224 @@
+package com.nityankhanna.androidutils.http;
+
+import android.util.JsonWriter;
+
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An entity which serializes a JSON body.
+ * <p/>
+ * The body of a JsonBodyWriter is serialized straight to the connection as it is sent. It is never held in memory as a
+ * whole, so it is sent with chunked transfer encoding. Parameters and trees of values are already in memory, so they
+ * are serialized up front and sent with a Content-Length, which servers which do not accept chunked requests require.
+ */
+public class JsonEntity extends AbstractHttpEntity {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final JsonBodyWriter bodyWriter;
+	private final Encoding encoding;
+	private byte[] bytes;
+
+	/**
+	 * Initializes a new instance of the JsonEntity class which writes a list of parameters as a JSON object.
+	 *
+	 * @param parameters The parameters.
+	 * @param encoding   The encoding.
+	 */
+	public JsonEntity(final List<HttpParameter> parameters, Encoding encoding) {
+		this(new JsonBodyWriter() {
+
+			@Override
+			public void write(JsonWriter writer) throws IOException {
+
+				writer.beginObject();
+
+				for (HttpParameter parameter : parameters) {
+					writer.name(parameter.getName()).value(parameter.getValue());
+				}
+
+				writer.endObject();
+			}
+		}, encoding);
+
+		serialize();
+	}
+
+	/**
+	 * Initializes a new instance of the JsonEntity class which writes a tree of maps, collections, arrays and values.
+	 *
+	 * @param value    The value to write.
+	 * @param encoding The encoding.
+	 */
+	public JsonEntity(final Object value, Encoding encoding) {
+		this(new JsonBodyWriter() {
+
+			@Override
+			public void write(JsonWriter writer) throws IOException {
+				writeValue(writer, value);
+			}
+		}, encoding);
+
+		serialize();
+	}
+
+	/**
+	 * Initializes a new instance of the JsonEntity class with a body writer.
+	 *
+	 * @param bodyWriter The body writer.
+	 * @param encoding   The encoding.
+	 */
+	public JsonEntity(JsonBodyWriter bodyWriter, Encoding encoding) {
+		this.bodyWriter = bodyWriter;
+		this.encoding = encoding == null ? Encoding.UTF_8 : encoding;
+
+		setContentType("application/json;charset=" + this.encoding.getValue());
+		setChunked(true);
+	}
+
+	/**
+	 * Writes a value, recursing into maps, collections and arrays.
+	 *
+	 * @param writer The JSON writer.
+	 * @param value  The value to write.
+	 *
+	 * @throws IOException
+	 */
+	public static void writeValue(JsonWriter writer, Object value) throws IOException {
+
+		if (value == null) {
+			writer.nullValue();
+		} else if (value instanceof JsonBodyWriter) {
+			((JsonBodyWriter) value).write(writer);
+		} else if (value instanceof Map) {
+
+			writer.beginObject();
+
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				writer.name(String.valueOf(entry.getKey()));
+				writeValue(writer, entry.getValue());
+			}
+
+			writer.endObject();
+		} else if (value instanceof Collection) {
+
+			writer.beginArray();
+
+			for (Object element : (Collection<?>) value) {
+				writeValue(writer, element);
+			}
+
+			writer.endArray();
+		} else if (value instanceof Object[]) {
+
+			writer.beginArray();
+
+			for (Object element : (Object[]) value) {
+				writeValue(writer, element);
+			}
+
+			writer.endArray();
+		} else if (value instanceof Boolean) {
+			writer.value((Boolean) value);
+		} else if (value instanceof Double || value instanceof Float) {
+			writer.value(((Number) value).doubleValue());
+		} else if (value instanceof Number) {
+			// Writes BigDecimal and BigInteger values in full rather than truncating them to a long.
+			writer.value((Number) value);
+		} else if (value instanceof HttpParameter) {
+			writer.beginObject();
+			writer.name(((HttpParameter) value).getName()).value(((HttpParameter) value).getValue());
+			writer.endObject();
+		} else {
+			writer.value(value.toString());
+		}
+	}
+
+	/**
+	 * Serializes the body into memory, so it is sent with a Content-Length.
+	 */
+	private void serialize() {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream(BUFFER_SIZE);
+
+		try {
+			write(outputStream);
+		} catch (IOException e) {
+			throw new IllegalArgumentException(e);
+		}
+
+		bytes = outputStream.toByteArray();
+		setChunked(false);
+	}
+
+	@Override
+	public boolean isRepeatable() {
+		return true;
+	}
+
+	@Override
+	public long getContentLength() {
+		return bytes != null ? bytes.length : -1;
+	}
+
+	/**
+	 * Serializes the body into memory.
+	 * <p/>
+	 * This is only used when the body has to be inspected, the body is normally streamed with writeTo.
+	 *
+	 * @return Returns a stream of the serialized body.
+	 *
+	 * @throws IOException
+	 */
+	@Override
+	public InputStream getContent() throws IOException {
+
+		if (bytes != null) {
+			return new ByteArrayInputStream(bytes);
+		}
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream(BUFFER_SIZE);
+		writeTo(outputStream);
+
+		return new ByteArrayInputStream(outputStream.toByteArray());
+	}
+
+	@Override
+	public void writeTo(OutputStream outputStream) throws IOException {
+
+		if (outputStream == null) {
+			throw new IllegalArgumentException("Output stream may not be null");
+		}
+
+		if (bytes != null) {
+			outputStream.write(bytes);
+			outputStream.flush();
+		} else {
+			write(outputStream);
+		}
+	}
+
+	private void write(OutputStream outputStream) throws IOException {
+
+		JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(outputStream, encoding.getValue()), BUFFER_SIZE));
+
+		bodyWriter.write(writer);
+		writer.flush();
+	}
+
+	@Override
+	public boolean isStreaming() {
+		return false;
+	}
+}
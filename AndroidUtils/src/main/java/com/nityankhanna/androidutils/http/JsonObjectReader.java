@@ -0,0 +1,24 @@
+package com.nityankhanna.androidutils.http;
+
+import android.util.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * An interface for reading a typed object from a JSON stream.
+ *
+ * @param <T> The type of the object.
+ */
+public interface JsonObjectReader<T> {
+
+	/**
+	 * Reads the next value of the reader into an object.
+	 *
+	 * @param reader The JSON reader positioned at the value.
+	 *
+	 * @return Returns the object.
+	 *
+	 * @throws IOException
+	 */
+	T read(JsonReader reader) throws IOException;
+}
@@ -0,0 +1,43 @@
+package com.nityankhanna.androidutils.http;
+
+import android.util.JsonReader;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * A response body handler which parses a JSON body directly from the connection, without building a JSONObject tree.
+ * <p/>
+ * Only responses with a JSON content type are parsed. A malformed body fails the request with an IOException.
+ */
+public abstract class JsonResponseHandler implements ResponseBodyHandler {
+
+	@Override
+	public final void onResponseBody(HttpResponseMessage response, ResponseBody body) throws IOException {
+
+		if (response.getContentType() != ContentType.JSON) {
+			return;
+		}
+
+		JsonReader reader = new JsonReader(new InputStreamReader(body.byteStream(), body.getCharset()));
+
+		try {
+			onJson(response, reader);
+		} catch (RuntimeException e) {
+			// JsonReader reports malformed JSON with IllegalStateException and NumberFormatException.
+			throw new IOException(e);
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * A delegate method called on the background thread to pull values from the response body.
+	 *
+	 * @param response The response.
+	 * @param reader   The JSON reader positioned at the start of the body.
+	 *
+	 * @throws IOException
+	 */
+	protected abstract void onJson(HttpResponseMessage response, JsonReader reader) throws IOException;
+}
@@ -0,0 +1,297 @@
+package com.nityankhanna.androidutils.http;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.AbortableHttpRequest;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in-process transport which serves canned or recorded responses without a network, with a configurable latency.
+ * <p/>
+ * Responses added for a method and url are served in order, and the last one is repeated. Requests without a response
+ * of their own are served from the queue of enqueued responses, and get a 404 once it is empty. Requests still go
+ * through HttpCompression and can be aborted while they wait, so the whole request pipeline can be tested and
+ * benchmarked offline.
+ */
+public class MockHttpTransport implements HttpTransport {
+
+	private static final int FORMAT_VERSION = 1;
+
+	private final Map<String, List<MockResponse>> responses = new HashMap<>();
+	private final ArrayDeque<MockResponse> queue = new ArrayDeque<>();
+	private final AtomicInteger requestCount = new AtomicInteger();
+	private final HttpRequestInterceptor compressionRequestInterceptor = HttpCompression.getInstance().createRequestInterceptor();
+	private final HttpResponseInterceptor compressionResponseInterceptor = HttpCompression.getInstance().createResponseInterceptor();
+	private volatile long latencyMillis;
+
+	/**
+	 * Gets the time every response takes to be served.
+	 *
+	 * @return Returns the latency in milliseconds.
+	 */
+	public long getLatencyMillis() {
+		return latencyMillis;
+	}
+
+	/**
+	 * Sets the time every response takes to be served, unless the response has its own delay.
+	 *
+	 * @param latency The latency.
+	 * @param unit    The time unit of the latency.
+	 */
+	public void setLatency(long latency, TimeUnit unit) {
+		this.latencyMillis = unit.toMillis(latency);
+	}
+
+	/**
+	 * Gets the number of requests which have been executed.
+	 *
+	 * @return Returns the request count.
+	 */
+	public int getRequestCount() {
+		return requestCount.get();
+	}
+
+	/**
+	 * Adds a response for a method and url.
+	 *
+	 * @param requestType The method.
+	 * @param url         The url, including the query string.
+	 * @param response    The response.
+	 */
+	public void addResponse(RequestType requestType, String url, MockResponse response) {
+		addResponse(requestType.getValue(), url, response);
+	}
+
+	/**
+	 * Adds a response served to the next request which has no response of its own.
+	 *
+	 * @param response The response.
+	 */
+	public synchronized void enqueue(MockResponse response) {
+		queue.add(response);
+	}
+
+	/**
+	 * Removes every response.
+	 */
+	public synchronized void clear() {
+		responses.clear();
+		queue.clear();
+	}
+
+	@Override
+	public HttpResponse execute(HttpUriRequest request, HttpContext context) throws IOException {
+
+		try {
+			compressionRequestInterceptor.process(request, context);
+		} catch (HttpException e) {
+			throw new ClientProtocolException(e);
+		}
+
+		requestCount.incrementAndGet();
+
+		MockResponse response = takeResponse(request.getMethod(), request.getURI().toString());
+		long delayMillis = response.getDelayMillis() >= 0 ? response.getDelayMillis() : latencyMillis;
+
+		await(request, delayMillis);
+
+		HttpResponse httpResponse = createResponse(response);
+
+		try {
+			compressionResponseInterceptor.process(httpResponse, context);
+		} catch (HttpException e) {
+			throw new ClientProtocolException(e);
+		}
+
+		return httpResponse;
+	}
+
+	/**
+	 * Writes the responses added for a method and url, such as those recorded by a RecordingHttpTransport.
+	 *
+	 * @param outputStream The output stream.
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void writeTo(DataOutputStream outputStream) throws IOException {
+
+		outputStream.writeInt(FORMAT_VERSION);
+		outputStream.writeInt(responses.size());
+
+		for (Map.Entry<String, List<MockResponse>> entry : responses.entrySet()) {
+
+			outputStream.writeUTF(entry.getKey());
+			outputStream.writeInt(entry.getValue().size());
+
+			for (MockResponse response : entry.getValue()) {
+
+				outputStream.writeInt(response.getStatusCode());
+				outputStream.writeUTF(response.getReasonPhrase() == null ? "" : response.getReasonPhrase());
+				outputStream.writeInt(response.getHeaders().size());
+
+				for (HttpHeader header : response.getHeaders()) {
+					outputStream.writeUTF(header.getName());
+					outputStream.writeUTF(header.getValue());
+				}
+
+				outputStream.writeInt(response.getBody().length);
+				outputStream.write(response.getBody());
+			}
+		}
+
+		outputStream.flush();
+	}
+
+	/**
+	 * Reads responses written by writeTo, adding them to the transport.
+	 *
+	 * @param inputStream The input stream.
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void readFrom(DataInputStream inputStream) throws IOException {
+
+		if (inputStream.readInt() != FORMAT_VERSION) {
+			throw new IOException("Unsupported recording format");
+		}
+
+		int keyCount = inputStream.readInt();
+
+		for (int i = 0; i < keyCount; i++) {
+
+			String key = inputStream.readUTF();
+			int responseCount = inputStream.readInt();
+
+			for (int j = 0; j < responseCount; j++) {
+
+				int statusCode = inputStream.readInt();
+				String reasonPhrase = inputStream.readUTF();
+				int headerCount = inputStream.readInt();
+				List<HttpHeader> headers = new ArrayList<>(headerCount);
+
+				for (int k = 0; k < headerCount; k++) {
+					headers.add(new HttpHeader(inputStream.readUTF(), inputStream.readUTF()));
+				}
+
+				byte[] body = new byte[inputStream.readInt()];
+				inputStream.readFully(body);
+
+				MockResponse response = new MockResponse(statusCode, body);
+
+				response.setReasonPhrase(reasonPhrase.length() == 0 ? null : reasonPhrase);
+
+				for (HttpHeader header : headers) {
+					response.addHeader(header);
+				}
+
+				getResponses(key).add(response);
+			}
+		}
+	}
+
+	synchronized void addResponse(String method, String url, MockResponse response) {
+		getResponses(keyFor(method, url)).add(response);
+	}
+
+	private List<MockResponse> getResponses(String key) {
+
+		List<MockResponse> keyResponses = responses.get(key);
+
+		if (keyResponses == null) {
+			keyResponses = new ArrayList<>();
+			responses.put(key, keyResponses);
+		}
+
+		return keyResponses;
+	}
+
+	private synchronized MockResponse takeResponse(String method, String url) {
+
+		List<MockResponse> keyResponses = responses.get(keyFor(method, url));
+
+		if (keyResponses != null && !keyResponses.isEmpty()) {
+			return keyResponses.size() > 1 ? keyResponses.remove(0) : keyResponses.get(0);
+		}
+
+		MockResponse response = queue.poll();
+
+		return response != null ? response : new MockResponse(404, (byte[]) null);
+	}
+
+	/**
+	 * Waits for the latency of the response, returning early with an exception if the request is aborted.
+	 */
+	private static void await(HttpUriRequest request, long delayMillis) throws IOException {
+
+		final CountDownLatch abort = new CountDownLatch(1);
+
+		if (request instanceof AbortableHttpRequest) {
+			((AbortableHttpRequest) request).setReleaseTrigger(new ConnectionReleaseTrigger() {
+
+				@Override
+				public void releaseConnection() {
+				}
+
+				@Override
+				public void abortConnection() {
+					abort.countDown();
+				}
+			});
+		}
+
+		try {
+			if (delayMillis > 0 ? abort.await(delayMillis, TimeUnit.MILLISECONDS) : abort.getCount() == 0) {
+				throw new InterruptedIOException("The request was aborted");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the response");
+		}
+	}
+
+	private static HttpResponse createResponse(MockResponse response) {
+
+		String reasonPhrase = response.getReasonPhrase() != null ? response.getReasonPhrase()
+				: EnglishReasonPhraseCatalog.INSTANCE.getReason(response.getStatusCode(), Locale.US);
+		BasicHttpResponse httpResponse = new BasicHttpResponse(HttpVersion.HTTP_1_1, response.getStatusCode(), reasonPhrase);
+		ByteArrayEntity entity = new ByteArrayEntity(response.getBody());
+
+		for (HttpHeader header : response.getHeaders()) {
+			httpResponse.addHeader(header.getName(), header.getValue());
+		}
+
+		entity.setContentType(httpResponse.getFirstHeader("Content-Type"));
+		entity.setContentEncoding(httpResponse.getFirstHeader("Content-Encoding"));
+		httpResponse.setEntity(entity);
+
+		return httpResponse;
+	}
+
+	private static String keyFor(String method, String url) {
+		return method.toUpperCase(Locale.US) + " " + url;
+	}
+}
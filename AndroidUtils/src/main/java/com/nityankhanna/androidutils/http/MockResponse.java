@@ -0,0 +1,113 @@
+package com.nityankhanna.androidutils.http;
+
+import com.nityankhanna.androidutils.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a response served by a MockHttpTransport.
+ */
+public class MockResponse {
+
+	private final int statusCode;
+	private final byte[] body;
+	private final List<HttpHeader> headers = new ArrayList<>();
+	private String reasonPhrase;
+	private long delayMillis = -1;
+
+	/**
+	 * Initializes a new instance of the MockResponse class with a status code and a body.
+	 *
+	 * @param statusCode The status code.
+	 * @param body       The body.
+	 */
+	public MockResponse(int statusCode, byte[] body) {
+		this.statusCode = statusCode;
+		this.body = body == null ? new byte[0] : body;
+	}
+
+	/**
+	 * Initializes a new instance of the MockResponse class with a status code and a body, which is encoded as UTF-8.
+	 *
+	 * @param statusCode The status code.
+	 * @param body       The body.
+	 */
+	public MockResponse(int statusCode, String body) {
+		this(statusCode, body == null ? null : StringUtils.toByteArray(body));
+	}
+
+	/**
+	 * Gets the status code.
+	 *
+	 * @return Returns the status code.
+	 */
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * Gets the reason phrase.
+	 *
+	 * @return Returns the reason phrase, or null to use the standard reason phrase of the status code.
+	 */
+	public String getReasonPhrase() {
+		return reasonPhrase;
+	}
+
+	/**
+	 * Sets the reason phrase.
+	 *
+	 * @param reasonPhrase The reason phrase.
+	 */
+	public void setReasonPhrase(String reasonPhrase) {
+		this.reasonPhrase = reasonPhrase;
+	}
+
+	/**
+	 * Gets the body.
+	 *
+	 * @return Returns the body.
+	 */
+	public byte[] getBody() {
+		return body;
+	}
+
+	/**
+	 * Gets the headers.
+	 *
+	 * @return Returns the headers.
+	 */
+	public List<HttpHeader> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * Adds a header.
+	 *
+	 * @param header The header.
+	 */
+	public void addHeader(HttpHeader header) {
+		headers.add(header);
+	}
+
+	/**
+	 * Gets the time before the response is served.
+	 *
+	 * @return Returns the delay in milliseconds, or -1 to use the latency of the transport.
+	 */
+	public long getDelayMillis() {
+		return delayMillis;
+	}
+
+	/**
+	 * Sets the time before the response is served, in place of the latency of the transport.
+	 *
+	 * @param delay The delay.
+	 * @param unit  The time unit of the delay.
+	 */
+	public void setDelay(long delay, TimeUnit unit) {
+		this.delayMillis = unit.toMillis(delay);
+	}
+}
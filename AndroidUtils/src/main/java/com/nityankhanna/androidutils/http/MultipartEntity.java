@@ -0,0 +1,399 @@
+package com.nityankhanna.androidutils.http;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A multipart/form-data entity which streams its parts to the connection as it is sent.
+ * <p/>
+ * File parts are transferred from a FileChannel rather than read into memory, and stream parts are copied through a
+ * single buffer. When the length of every part is known the body is sent with a Content-Length, otherwise it is sent
+ * with chunked transfer encoding.
+ * <p/>
+ * Set the entity on a POST or PUT request message with setEntity. An entity with stream parts can only be written
+ * once, so the request is not retried.
+ */
+public class MultipartEntity extends AbstractHttpEntity {
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final String CRLF = "\r\n";
+	private static final long TRANSFER_SIZE = 64 * 1024;
+
+	private final String boundary;
+	private final Encoding encoding;
+	private final Handler mainHandler = new Handler(Looper.getMainLooper());
+	private final List<Part> parts = new ArrayList<>();
+	private final AtomicBoolean progressPosted = new AtomicBoolean();
+	private volatile long bytesWritten;
+	private OnUploadProgressListener progressListener;
+
+	private final Runnable progressRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+
+			progressPosted.set(false);
+
+			if (progressListener != null) {
+				progressListener.onUploadProgress(bytesWritten, getContentLength());
+			}
+		}
+	};
+
+	/**
+	 * Initializes a new instance of the MultipartEntity class with UTF-8 part headers.
+	 */
+	public MultipartEntity() {
+		this(Encoding.UTF_8);
+	}
+
+	/**
+	 * Initializes a new instance of the MultipartEntity class.
+	 *
+	 * @param encoding The encoding of the part headers and string parts.
+	 */
+	public MultipartEntity(Encoding encoding) {
+		this.encoding = encoding == null ? Encoding.UTF_8 : encoding;
+		this.boundary = "----" + UUID.randomUUID().toString();
+
+		setContentType("multipart/form-data; boundary=" + boundary);
+		setChunked(false);
+	}
+
+	/**
+	 * Adds a form field.
+	 *
+	 * @param name  The name of the field.
+	 * @param value The value of the field.
+	 */
+	public void addPart(String name, String value) {
+		try {
+			addPart(new Part(name, null, "text/plain; charset=" + encoding.getValue(), value.getBytes(encoding.getValue())));
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * Adds a file, which is streamed from disk as the request is sent. The length of the file is measured when it is
+	 * added, and the request fails if the file is truncated before it is sent.
+	 *
+	 * @param name        The name of the field.
+	 * @param file        The file.
+	 * @param contentType The content type of the file, such as image/jpeg.
+	 */
+	public void addPart(String name, File file, String contentType) {
+		addPart(new Part(name, file.getName(), contentType, file));
+	}
+
+	/**
+	 * Adds a stream, which is read as the request is sent and closed once it has been written.
+	 *
+	 * @param name          The name of the field.
+	 * @param fileName      The file name sent with the part.
+	 * @param stream        The stream.
+	 * @param contentType   The content type of the stream.
+	 * @param contentLength The length of the stream, or -1 if it is unknown, in which case the body is chunked. The
+	 *                      request fails if the stream is not exactly this long.
+	 */
+	public void addPart(String name, String fileName, InputStream stream, String contentType, long contentLength) {
+		addPart(new Part(name, fileName, contentType, stream, contentLength));
+	}
+
+	/**
+	 * Gets the listener which receives the progress of the body.
+	 *
+	 * @return Returns the progress listener, or null if there is none.
+	 */
+	public OnUploadProgressListener getProgressListener() {
+		return progressListener;
+	}
+
+	/**
+	 * Sets the listener which receives the progress of the body on the main thread.
+	 *
+	 * @param progressListener The progress listener.
+	 */
+	public void setProgressListener(OnUploadProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+	private void addPart(Part part) {
+		parts.add(part);
+		setChunked(getContentLength() < 0);
+	}
+
+	@Override
+	public boolean isRepeatable() {
+
+		for (Part part : parts) {
+			if (part.stream != null) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public long getContentLength() {
+
+		long contentLength = getBytes("--" + boundary + "--" + CRLF).length;
+
+		for (Part part : parts) {
+
+			long length = part.getLength();
+
+			if (length < 0) {
+				return -1;
+			}
+
+			contentLength += part.header.length + length + CRLF.length();
+		}
+
+		return contentLength;
+	}
+
+	/**
+	 * Writes the body into memory.
+	 * <p/>
+	 * This is only used when the body has to be inspected, the body is normally streamed with writeTo.
+	 *
+	 * @return Returns a stream of the body.
+	 *
+	 * @throws IOException
+	 */
+	@Override
+	public InputStream getContent() throws IOException {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream(BUFFER_SIZE);
+		writeTo(outputStream);
+
+		return new ByteArrayInputStream(outputStream.toByteArray());
+	}
+
+	@Override
+	public void writeTo(OutputStream outputStream) throws IOException {
+
+		if (outputStream == null) {
+			throw new IllegalArgumentException("Output stream may not be null");
+		}
+
+		WritableByteChannel target = null;
+		byte[] buffer = null;
+
+		bytesWritten = 0;
+
+		for (Part part : parts) {
+
+			write(outputStream, part.header);
+
+			if (part.bytes != null) {
+				write(outputStream, part.bytes);
+			} else if (part.file != null) {
+
+				if (target == null) {
+					target = Channels.newChannel(outputStream);
+				}
+
+				transfer(part.file, part.fileLength, target);
+			} else {
+
+				if (buffer == null) {
+					buffer = new byte[BUFFER_SIZE];
+				}
+
+				copy(part.stream, part.streamLength, outputStream, buffer);
+			}
+
+			write(outputStream, getBytes(CRLF));
+		}
+
+		write(outputStream, getBytes("--" + boundary + "--" + CRLF));
+		outputStream.flush();
+	}
+
+	@Override
+	public boolean isStreaming() {
+		return !isRepeatable();
+	}
+
+	private void write(OutputStream outputStream, byte[] bytes) throws IOException {
+		outputStream.write(bytes);
+		addProgress(bytes.length);
+	}
+
+	/**
+	 * Transfers a file to the connection in slices, so progress can be reported between them.
+	 * <p/>
+	 * Exactly the length the Content-Length was computed with is sent, even if the file has grown since.
+	 *
+	 * @param file   The file.
+	 * @param size   The length of the file when it was added.
+	 * @param target The channel of the connection.
+	 *
+	 * @throws IOException
+	 */
+	private void transfer(File file, long size, WritableByteChannel target) throws IOException {
+
+		FileInputStream inputStream = new FileInputStream(file);
+
+		try {
+			FileChannel source = inputStream.getChannel();
+			long position = 0;
+
+			while (position < size) {
+
+				long count = source.transferTo(position, Math.min(TRANSFER_SIZE, size - position), target);
+
+				if (count <= 0) {
+					throw new IOException("The file was truncated while it was sent: " + file);
+				}
+
+				position += count;
+				addProgress(count);
+			}
+		} finally {
+			inputStream.close();
+		}
+	}
+
+	/**
+	 * Copies a stream to the connection, checking that it is as long as it was declared to be.
+	 *
+	 * @param inputStream  The stream.
+	 * @param length       The declared length of the stream, or -1 to copy it to its end.
+	 * @param outputStream The stream of the connection.
+	 * @param buffer       The buffer.
+	 *
+	 * @throws IOException
+	 */
+	private void copy(InputStream inputStream, long length, OutputStream outputStream, byte[] buffer) throws IOException {
+
+		try {
+			long copied = 0;
+			int count;
+
+			while (length < 0 || copied < length) {
+
+				int limit = length < 0 ? buffer.length : (int) Math.min(buffer.length, length - copied);
+
+				if ((count = inputStream.read(buffer, 0, limit)) == -1) {
+					break;
+				}
+
+				outputStream.write(buffer, 0, count);
+				copied += count;
+				addProgress(count);
+			}
+
+			if (length >= 0 && (copied < length || inputStream.read() != -1)) {
+				throw new IOException("The stream was not the declared length of " + length + " bytes");
+			}
+		} finally {
+			inputStream.close();
+		}
+	}
+
+	private void addProgress(long count) {
+
+		bytesWritten += count;
+
+		if (progressListener != null && progressPosted.compareAndSet(false, true)) {
+			mainHandler.post(progressRunnable);
+		}
+	}
+
+	private byte[] getBytes(String value) {
+		try {
+			return value.getBytes(encoding.getValue());
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * Escapes a name or file name of the Content-Disposition header, in the way browsers do.
+	 *
+	 * @param value The value.
+	 *
+	 * @return Returns the escaped value.
+	 */
+	private static String escape(String value) {
+		return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+	}
+
+	/**
+	 * A part of the body, which holds either bytes, a file or a stream.
+	 */
+	private final class Part {
+
+		private final byte[] bytes;
+		private final File file;
+		private final long fileLength;
+		private final byte[] header;
+		private final InputStream stream;
+		private final long streamLength;
+
+		private Part(String name, String fileName, String contentType, byte[] bytes) {
+			this(name, fileName, contentType, bytes, null, null, bytes.length);
+		}
+
+		private Part(String name, String fileName, String contentType, File file) {
+			this(name, fileName, contentType, null, file, null, -1);
+		}
+
+		private Part(String name, String fileName, String contentType, InputStream stream, long streamLength) {
+			this(name, fileName, contentType, null, null, stream, streamLength);
+		}
+
+		private Part(String name, String fileName, String contentType, byte[] bytes, File file, InputStream stream, long streamLength) {
+			this.bytes = bytes;
+			this.file = file;
+			this.fileLength = file != null ? file.length() : -1;
+			this.stream = stream;
+			this.streamLength = streamLength;
+
+			StringBuilder builder = new StringBuilder();
+
+			builder.append("--").append(boundary).append(CRLF);
+			builder.append("Content-Disposition: form-data; name=\"").append(escape(name)).append('"');
+
+			if (fileName != null) {
+				builder.append("; filename=\"").append(escape(fileName)).append('"');
+			}
+
+			builder.append(CRLF);
+
+			if (contentType != null) {
+				builder.append("Content-Type: ").append(contentType).append(CRLF);
+			}
+
+			builder.append(CRLF);
+
+			this.header = getBytes(builder.toString());
+		}
+
+		private long getLength() {
+			return file != null ? fileLength : streamLength;
+		}
+	}
+}
@@ -0,0 +1,1134 @@
+package com.nityankhanna.androidutils.http;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.Handler;
+import android.os.Looper;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * A durable queue of POST, PUT and DELETE requests, which are replayed once the device is online.
+ * <p/>
+ * Requests are appended to a log file and synced to disk before the future returned by enqueue completes, so a
+ * queued request survives the process being killed. Requests queued together are written with a single sync. Replayed
+ * requests are marked as done with a record of their own, and the log is compacted into a new file once most of it
+ * is done. A record which was torn by a crash is detected by its checksum and dropped when the queue is loaded.
+ * <p/>
+ * Each request is queued with an idempotency key, sent in the Idempotency-Key header, which is kept if the request
+ * already has one. Requests are delivered at least once, since a request can be replayed again if the process is
+ * killed before its response is recorded, so the server should use the key to ignore duplicates. The headers and the
+ * body are captured when the request is queued.
+ * <p/>
+ * Queued requests are replayed in the order they were queued, in batches executed with an HttpBatch at the PREFETCH
+ * priority. When connectivity returns the replay starts after a random delay, so clients which reconnect together do
+ * not replay together. Successful responses and client errors are final, while failures, server errors and the
+ * retryable status codes of the retry policy stop the replay, which is retried with the backoff of the retry policy.
+ * The requests after a retried request are replayed again after it, even if they already succeeded.
+ */
+public final class OfflineRequestQueue {
+
+	/**
+	 * The header the idempotency key of a request is sent in.
+	 */
+	public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+	private static final long COMPACTION_MIN_BYTES = 32 * 1024;
+	private static final int RECORD_HEADER_LENGTH = 9;
+	private static final int TYPE_ADD = 1;
+	private static final int TYPE_DONE = 2;
+
+	private static final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+
+	private final List<Append> appends = new ArrayList<>();
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+	private final File file;
+	private final Handler mainHandler = new Handler(Looper.getMainLooper());
+	private final long maxSizeBytes;
+	private final Random random = new Random();
+	private FileOutputStream appendStream;
+	private HttpBatch batch;
+	private String batchUrl;
+	private Context context;
+	private long deadBytes;
+	private int failedAttempts;
+	private long fileSize;
+	private int generation;
+	private OnQueuedRequestListener listener;
+	private int maxBatchSize = 20;
+	private int maxConcurrentRequests = 1;
+	private long maxStartDelayMillis = 5000;
+	private volatile int pendingCount;
+	private BroadcastReceiver receiver;
+	private boolean replaying;
+	private RetryPolicy retryPolicy = new RetryPolicy(Integer.MAX_VALUE, 1000, 5 * 60 * 1000);
+
+	private final Runnable flushRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			flushAppends();
+		}
+	};
+
+	private final Runnable retryRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			startReplay(0);
+		}
+	};
+
+	/**
+	 * Initializes a new instance of the OfflineRequestQueue class, and loads the requests queued in the file in the
+	 * background.
+	 *
+	 * @param file         The log file of the queue, such as a file in the files directory of the application.
+	 * @param maxSizeBytes The maximum size of the log file, which bounds the size of the queued requests.
+	 */
+	public OfflineRequestQueue(File file, long maxSizeBytes) {
+
+		if (file == null) {
+			throw new IllegalArgumentException("The file cannot be null");
+		}
+
+		if (maxSizeBytes <= 0) {
+			throw new IllegalArgumentException("The maximum size must be greater than 0");
+		}
+
+		this.file = file;
+		this.maxSizeBytes = maxSizeBytes;
+
+		diskExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				load();
+			}
+		});
+	}
+
+	/**
+	 * Gets the log file of the queue.
+	 *
+	 * @return Returns the file.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Gets the maximum size of the log file.
+	 *
+	 * @return Returns the maximum size in bytes.
+	 */
+	public long getMaxSizeBytes() {
+		return maxSizeBytes;
+	}
+
+	/**
+	 * Gets the number of requests which are waiting to be replayed.
+	 *
+	 * @return Returns the number of pending requests.
+	 */
+	public int getPendingCount() {
+		return pendingCount;
+	}
+
+	/**
+	 * Gets the listener which receives the responses of replayed requests.
+	 *
+	 * @return Returns the listener, or null if there is none.
+	 */
+	public OnQueuedRequestListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Sets the listener which receives the responses of replayed requests on the main thread.
+	 *
+	 * @param listener The listener.
+	 */
+	public void setListener(OnQueuedRequestListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Gets the URL batches of requests are packed and sent to.
+	 *
+	 * @return Returns the batch URL, or null if the requests are replayed individually.
+	 */
+	public String getBatchUrl() {
+		return batchUrl;
+	}
+
+	/**
+	 * Sets the URL of a server endpoint which accepts multipart/mixed batch requests, so each batch of replayed
+	 * requests is sent as a single request.
+	 *
+	 * @param batchUrl The batch URL, or null to replay the requests individually.
+	 */
+	public void setBatchUrl(String batchUrl) {
+		this.batchUrl = batchUrl;
+	}
+
+	/**
+	 * Gets the maximum number of requests replayed in a batch.
+	 *
+	 * @return Returns the maximum batch size.
+	 */
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	/**
+	 * Sets the maximum number of requests replayed in a batch.
+	 *
+	 * @param maxBatchSize The maximum batch size.
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+
+		if (maxBatchSize < 1) {
+			throw new IllegalArgumentException("The maximum batch size must be at least 1");
+		}
+
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * Gets the maximum number of requests of a batch executed at once when they are replayed individually.
+	 *
+	 * @return Returns the maximum number of concurrent requests.
+	 */
+	public int getMaxConcurrentRequests() {
+		return maxConcurrentRequests;
+	}
+
+	/**
+	 * Sets the maximum number of requests of a batch executed at once when they are replayed individually. The default
+	 * is 1, since requests executed at once can reach the server out of order.
+	 *
+	 * @param maxConcurrentRequests The maximum number of concurrent requests.
+	 */
+	public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+
+		if (maxConcurrentRequests < 1) {
+			throw new IllegalArgumentException("The maximum number of concurrent requests must be at least 1");
+		}
+
+		this.maxConcurrentRequests = maxConcurrentRequests;
+	}
+
+	/**
+	 * Gets the maximum delay before the replay starts once connectivity returns.
+	 *
+	 * @return Returns the maximum start delay in milliseconds.
+	 */
+	public long getMaxStartDelayMillis() {
+		return maxStartDelayMillis;
+	}
+
+	/**
+	 * Sets the maximum delay before the replay starts once connectivity returns. The delay is chosen at random up to
+	 * the maximum, to spread out the requests of clients which reconnect at the same time.
+	 *
+	 * @param duration The maximum delay, or 0 to start straight away.
+	 * @param unit     The time unit of the delay.
+	 */
+	public void setMaxStartDelay(long duration, TimeUnit unit) {
+		this.maxStartDelayMillis = unit.toMillis(duration);
+	}
+
+	/**
+	 * Gets the policy which determines the retryable status codes and the backoff between failed replays.
+	 *
+	 * @return Returns the retry policy.
+	 */
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * Sets the policy which determines the retryable status codes and the backoff between failed replays. The maximum
+	 * number of attempts is ignored, since queued requests are kept until they have been replayed.
+	 *
+	 * @param retryPolicy The retry policy.
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+
+		if (retryPolicy == null) {
+			throw new IllegalArgumentException("The retry policy cannot be null");
+		}
+
+		this.retryPolicy = retryPolicy;
+	}
+
+	/**
+	 * Queues a request. The request is captured as it is now, so later changes to the request message are not sent.
+	 *
+	 * @param requestMessage The POST, PUT or DELETE request message.
+	 *
+	 * @return Returns a future of the idempotency key of the request, which completes once the request has been
+	 * written to disk, or fails with an IOException if the queue is full or the request could not be written.
+	 *
+	 * @throws IllegalArgumentException If the request is not a POST, PUT or DELETE request, or its URL is not valid.
+	 */
+	public HttpFuture<String> enqueue(HttpRequestMessage requestMessage) {
+
+		RequestType requestType = requestMessage.getRequestType();
+
+		if (requestType != RequestType.POST && requestType != RequestType.PUT && requestType != RequestType.DELETE) {
+			throw new IllegalArgumentException("Only POST, PUT and DELETE requests can be queued");
+		}
+
+		HttpFuture<String> future = new HttpFuture<>();
+		Entry entry;
+
+		try {
+			entry = createEntry(requestMessage);
+		} catch (IOException e) {
+			future.fail(e);
+			return future;
+		}
+
+		boolean scheduleFlush;
+
+		synchronized (appends) {
+			appends.add(new Append(entry, future));
+			scheduleFlush = appends.size() == 1;
+		}
+
+		if (scheduleFlush) {
+			diskExecutor.execute(flushRunnable);
+		}
+
+		return future;
+	}
+
+	/**
+	 * Replays the queued requests if they are not already being replayed, without waiting for connectivity to change.
+	 */
+	public void replay() {
+
+		mainHandler.post(new Runnable() {
+
+			@Override
+			public void run() {
+				startReplay(0);
+			}
+		});
+	}
+
+	/**
+	 * Starts replaying the queued requests whenever the device connects to a network, including straight away if it
+	 * is already connected. This must be called from the main thread.
+	 *
+	 * @param context The context.
+	 */
+	public void start(Context context) {
+
+		if (receiver != null) {
+			return;
+		}
+
+		this.context = context.getApplicationContext();
+		this.receiver = new BroadcastReceiver() {
+
+			@Override
+			public void onReceive(Context context, Intent intent) {
+				if (isConnected(context)) {
+					startReplay(maxStartDelayMillis > 0 ? (long) (random.nextDouble() * maxStartDelayMillis) : 0);
+				}
+			}
+		};
+
+		// The connectivity broadcast is sticky, so the receiver is called with the current state as it is registered.
+		this.context.registerReceiver(receiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+	}
+
+	/**
+	 * Stops replaying the queued requests, and cancels the requests which are being replayed. They are kept in the
+	 * queue and replayed again once the queue is started. This must be called from the main thread.
+	 */
+	public void stop() {
+
+		if (receiver != null) {
+			context.unregisterReceiver(receiver);
+			receiver = null;
+			context = null;
+		}
+
+		generation++;
+		replaying = false;
+		mainHandler.removeCallbacks(retryRunnable);
+
+		if (batch != null) {
+			batch.cancel();
+			batch = null;
+		}
+	}
+
+	/**
+	 * Starts replaying the queued requests on the main thread, unless they are already being replayed.
+	 *
+	 * @param delayMillis The delay before the first batch is replayed.
+	 */
+	private void startReplay(long delayMillis) {
+
+		if (replaying) {
+			return;
+		}
+
+		replaying = true;
+		mainHandler.removeCallbacks(retryRunnable);
+
+		final int replayGeneration = generation;
+
+		mainHandler.postDelayed(new Runnable() {
+
+			@Override
+			public void run() {
+				if (generation == replayGeneration) {
+					replayNextBatch();
+				}
+			}
+		}, delayMillis);
+	}
+
+	/**
+	 * Reads the oldest queued requests on the disk thread and replays them on the main thread.
+	 */
+	private void replayNextBatch() {
+
+		final int replayGeneration = generation;
+		final int batchSize = maxBatchSize;
+
+		diskExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+
+				final List<Entry> batchEntries = new ArrayList<>(batchSize);
+
+				for (Entry entry : entries.values()) {
+
+					if (batchEntries.size() == batchSize) {
+						break;
+					}
+
+					batchEntries.add(entry);
+				}
+
+				mainHandler.post(new Runnable() {
+
+					@Override
+					public void run() {
+						if (generation == replayGeneration) {
+							executeBatch(batchEntries);
+						}
+					}
+				});
+			}
+		});
+	}
+
+	private void executeBatch(final List<Entry> batchEntries) {
+
+		if (batchEntries.isEmpty()) {
+			replaying = false;
+			return;
+		}
+
+		batch = new HttpBatch();
+		batch.setBatchUrl(batchUrl);
+		batch.setMaxConcurrentRequests(maxConcurrentRequests);
+
+		for (Entry entry : batchEntries) {
+			batch.add(entry.createRequestMessage(), null);
+		}
+
+		batch.execute(new OnBatchCompletedListener() {
+
+			@Override
+			public void onBatchCompleted(List<HttpResponseMessage> responses) {
+				completeBatch(batchEntries, responses);
+			}
+		});
+	}
+
+	/**
+	 * Notifies the listener of the final responses of a batch and marks their requests as done, up to the first request
+	 * which has to be retried. The next batch is replayed once they have been recorded, unless a request has to be
+	 * retried.
+	 *
+	 * @param batchEntries The queued requests of the batch.
+	 * @param responses    The responses, in the order of the requests.
+	 */
+	private void completeBatch(List<Entry> batchEntries, List<HttpResponseMessage> responses) {
+
+		batch = null;
+
+		final List<String> doneKeys = new ArrayList<>(batchEntries.size());
+		HttpResponseMessage retryResponse = null;
+
+		for (int i = 0; i < batchEntries.size(); i++) {
+
+			HttpResponseMessage response = responses.get(i);
+
+			if (isRetryable(response)) {
+				retryResponse = response;
+				break;
+			}
+
+			doneKeys.add(batchEntries.get(i).key);
+
+			if (listener != null) {
+				listener.onRequestReplayed(batchEntries.get(i).key, response);
+			}
+		}
+
+		final int replayGeneration = generation;
+		final String retryAfter = retryResponse == null ? null : getHeader(retryResponse, "Retry-After");
+		final boolean retry = retryResponse != null;
+
+		diskExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+
+				final boolean recorded = markDone(doneKeys);
+
+				mainHandler.post(new Runnable() {
+
+					@Override
+					public void run() {
+
+						if (generation != replayGeneration) {
+							return;
+						}
+
+						if (retry || !recorded) {
+							scheduleRetry(retryAfter);
+						} else {
+							failedAttempts = 0;
+							replayNextBatch();
+						}
+					}
+				});
+			}
+		});
+	}
+
+	private void scheduleRetry(String retryAfter) {
+
+		long delayMillis = retryPolicy.getDelayMillis(++failedAttempts, retryAfter);
+
+		if (delayMillis < 0) {
+			delayMillis = retryPolicy.getMaxBackoffMillis();
+		}
+
+		replaying = false;
+		mainHandler.postDelayed(retryRunnable, delayMillis);
+	}
+
+	private boolean isRetryable(HttpResponseMessage response) {
+
+		if (response == null) {
+			return true;
+		}
+
+		int statusCode = response.getStatusCode();
+
+		return statusCode < 200 || statusCode >= 500 || retryPolicy.isRetryableStatus(statusCode);
+	}
+
+	/**
+	 * Captures the URL, headers and body of a request.
+	 *
+	 * @param requestMessage The request message.
+	 *
+	 * @return Returns the queued request.
+	 *
+	 * @throws IOException If the body could not be written.
+	 */
+	private static Entry createEntry(HttpRequestMessage requestMessage) throws IOException {
+
+		HttpClientService service = new HttpClientService(requestMessage);
+		List<HttpHeader> headers = new ArrayList<>();
+		String key = null;
+
+		for (Header header : service.getRequestHeaders()) {
+
+			if (IDEMPOTENCY_KEY_HEADER.equalsIgnoreCase(header.getName())) {
+				key = header.getValue();
+			} else {
+				headers.add(new HttpHeader(header.getName(), header.getValue()));
+			}
+		}
+
+		if (key == null) {
+			key = UUID.randomUUID().toString();
+		}
+
+		String contentType = null;
+		byte[] body = null;
+
+		if (requestMessage.getRequestType() != RequestType.DELETE) {
+
+			HttpEntity entity = service.createEntity();
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+			entity.writeTo(outputStream);
+			body = outputStream.toByteArray();
+
+			if (entity.getContentType() != null) {
+				contentType = entity.getContentType().getValue();
+			}
+		}
+
+		return new Entry(key, requestMessage.getRequestType(), requestMessage.getUrl(), headers, contentType, body);
+	}
+
+	/**
+	 * Writes the queued requests to the log with a single sync, and completes their futures. This runs on the disk
+	 * thread.
+	 */
+	private void flushAppends() {
+
+		List<Append> pendingAppends;
+
+		synchronized (appends) {
+			pendingAppends = new ArrayList<>(appends);
+			appends.clear();
+		}
+
+		ByteArrayOutputStream records = new ByteArrayOutputStream();
+		List<Append> accepted = new ArrayList<>(pendingAppends.size());
+		Set<String> acceptedKeys = new HashSet<>();
+
+		for (Append append : pendingAppends) {
+
+			if (entries.containsKey(append.entry.key) || acceptedKeys.contains(append.entry.key)) {
+				append.future.complete(append.entry.key);
+				continue;
+			}
+
+			byte[] record;
+
+			try {
+				record = createRecord(TYPE_ADD, append.entry.toByteArray());
+			} catch (IOException e) {
+				append.future.fail(e);
+				continue;
+			}
+
+			// Done records are dropped by compaction, so only the pending requests count towards the limit.
+			if (fileSize - deadBytes + records.size() + record.length > maxSizeBytes) {
+				append.future.fail(new IOException("The offline queue is full: " + file));
+				continue;
+			}
+
+			append.entry.recordLength = record.length;
+			records.write(record, 0, record.length);
+			accepted.add(append);
+			acceptedKeys.add(append.entry.key);
+		}
+
+		if (accepted.isEmpty()) {
+			return;
+		}
+
+		try {
+			if (fileSize + records.size() > maxSizeBytes) {
+				compact();
+			}
+
+			write(records.toByteArray());
+		} catch (IOException e) {
+			e.printStackTrace();
+
+			for (Append append : accepted) {
+				append.future.fail(e);
+			}
+
+			return;
+		}
+
+		for (Append append : accepted) {
+			entries.put(append.entry.key, append.entry);
+		}
+
+		pendingCount = entries.size();
+
+		for (Append append : accepted) {
+			append.future.complete(append.entry.key);
+		}
+	}
+
+	/**
+	 * Records that requests have been replayed, and compacts the log once most of it is done. This runs on the disk
+	 * thread.
+	 *
+	 * @param keys The idempotency keys of the requests.
+	 *
+	 * @return Returns false if the records could not be written, in which case the requests are replayed again.
+	 */
+	private boolean markDone(List<String> keys) {
+
+		ByteArrayOutputStream records = new ByteArrayOutputStream();
+		List<Entry> doneEntries = new ArrayList<>(keys.size());
+
+		try {
+			for (String key : keys) {
+
+				Entry entry = entries.get(key);
+
+				if (entry == null) {
+					continue;
+				}
+
+				ByteArrayOutputStream payload = new ByteArrayOutputStream();
+				new DataOutputStream(payload).writeUTF(key);
+
+				byte[] record = createRecord(TYPE_DONE, payload.toByteArray());
+
+				records.write(record, 0, record.length);
+				doneEntries.add(entry);
+			}
+
+			if (doneEntries.isEmpty()) {
+				return true;
+			}
+
+			write(records.toByteArray());
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		}
+
+		deadBytes += records.size();
+
+		for (Entry entry : doneEntries) {
+			entries.remove(entry.key);
+			deadBytes += entry.recordLength;
+		}
+
+		pendingCount = entries.size();
+
+		if (entries.isEmpty() || (deadBytes >= COMPACTION_MIN_BYTES && deadBytes * 2 >= fileSize)) {
+			try {
+				compact();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Appends records to the log and syncs it to disk. If the write fails the log is truncated back, so a partial
+	 * record does not hide the records which are appended after it.
+	 *
+	 * @param records The records.
+	 *
+	 * @throws IOException
+	 */
+	private void write(byte[] records) throws IOException {
+
+		try {
+			if (appendStream == null) {
+				appendStream = new FileOutputStream(file, true);
+			}
+
+			appendStream.write(records);
+			appendStream.getFD().sync();
+		} catch (IOException e) {
+			closeAppendStream();
+
+			try {
+				truncate(fileSize);
+			} catch (IOException truncateException) {
+				truncateException.printStackTrace();
+			}
+
+			throw e;
+		}
+
+		fileSize += records.length;
+	}
+
+	/**
+	 * Rewrites the log with only the pending requests, into a temporary file which then replaces the log.
+	 *
+	 * @throws IOException
+	 */
+	private void compact() throws IOException {
+
+		File compactedFile = new File(file.getPath() + ".tmp");
+		FileOutputStream outputStream = new FileOutputStream(compactedFile);
+		long compactedSize = 0;
+
+		closeAppendStream();
+
+		try {
+			ByteArrayOutputStream records = new ByteArrayOutputStream();
+
+			for (Entry entry : entries.values()) {
+
+				byte[] record = createRecord(TYPE_ADD, entry.toByteArray());
+
+				records.write(record, 0, record.length);
+				entry.recordLength = record.length;
+				compactedSize += record.length;
+			}
+
+			outputStream.write(records.toByteArray());
+			outputStream.getFD().sync();
+		} catch (IOException e) {
+			outputStream.close();
+			compactedFile.delete();
+			throw e;
+		}
+
+		outputStream.close();
+
+		if (!compactedFile.renameTo(file)) {
+			compactedFile.delete();
+			throw new IOException("The offline queue could not be compacted: " + file);
+		}
+
+		fileSize = compactedSize;
+		deadBytes = 0;
+	}
+
+	/**
+	 * Reads the pending requests from the log. The log is truncated at the first record which is incomplete or does
+	 * not match its checksum, which is where a write was interrupted. This runs on the disk thread.
+	 */
+	private void load() {
+
+		new File(file.getPath() + ".tmp").delete();
+
+		if (!file.exists()) {
+			return;
+		}
+
+		long fileLength = file.length();
+		long validLength = 0;
+		boolean torn = false;
+
+		try {
+			DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+			try {
+				int type;
+
+				while ((type = inputStream.read()) != -1) {
+
+					int length = inputStream.readInt();
+					int checksum = inputStream.readInt();
+
+					if ((type != TYPE_ADD && type != TYPE_DONE) || length < 0 || validLength + RECORD_HEADER_LENGTH + length > fileLength) {
+						torn = true;
+						break;
+					}
+
+					byte[] payload = new byte[length];
+					inputStream.readFully(payload);
+
+					if (checksum != getChecksum(type, payload)) {
+						torn = true;
+						break;
+					}
+
+					long recordLength = RECORD_HEADER_LENGTH + length;
+
+					if (type == TYPE_ADD) {
+
+						Entry entry = Entry.fromByteArray(payload);
+						entry.recordLength = recordLength;
+
+						Entry replaced = entries.put(entry.key, entry);
+
+						if (replaced != null) {
+							deadBytes += replaced.recordLength;
+						}
+					} else {
+
+						Entry entry = entries.remove(new DataInputStream(new ByteArrayInputStream(payload)).readUTF());
+
+						deadBytes += recordLength + (entry == null ? 0 : entry.recordLength);
+					}
+
+					validLength += recordLength;
+				}
+			} catch (EOFException e) {
+				torn = true;
+			} finally {
+				inputStream.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		fileSize = validLength;
+		pendingCount = entries.size();
+
+		if (torn) {
+			try {
+				truncate(validLength);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private void truncate(long length) throws IOException {
+
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+
+		try {
+			randomAccessFile.setLength(length);
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	private void closeAppendStream() {
+
+		if (appendStream == null) {
+			return;
+		}
+
+		try {
+			appendStream.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		appendStream = null;
+	}
+
+	/**
+	 * Creates a record of the log: the type, the length of the payload, a CRC32 checksum of the type and payload, and
+	 * the payload.
+	 *
+	 * @param type    The type of the record.
+	 * @param payload The payload.
+	 *
+	 * @return Returns the record.
+	 *
+	 * @throws IOException
+	 */
+	private static byte[] createRecord(int type, byte[] payload) throws IOException {
+
+		ByteArrayOutputStream record = new ByteArrayOutputStream(RECORD_HEADER_LENGTH + payload.length);
+		DataOutputStream outputStream = new DataOutputStream(record);
+
+		outputStream.writeByte(type);
+		outputStream.writeInt(payload.length);
+		outputStream.writeInt(getChecksum(type, payload));
+		outputStream.write(payload);
+
+		return record.toByteArray();
+	}
+
+	private static int getChecksum(int type, byte[] payload) {
+
+		CRC32 crc = new CRC32();
+
+		crc.update(type);
+		crc.update(payload);
+
+		return (int) crc.getValue();
+	}
+
+	private static String getHeader(HttpResponseMessage response, String name) {
+
+		List<HttpHeader> headers = response.getHeaders();
+
+		if (headers == null) {
+			return null;
+		}
+
+		for (HttpHeader header : headers) {
+			if (name.equalsIgnoreCase(header.getName())) {
+				return header.getValue();
+			}
+		}
+
+		return null;
+	}
+
+	private static boolean isConnected(Context context) {
+
+		ConnectivityManager connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+
+		NetworkInfo activeNetworkInfo = connectivityManager.getActiveNetworkInfo();
+
+		return (activeNetworkInfo != null && activeNetworkInfo.isConnected());
+	}
+
+	/**
+	 * A request waiting to be written to the log.
+	 */
+	private static final class Append {
+
+		private final Entry entry;
+		private final HttpFuture<String> future;
+
+		private Append(Entry entry, HttpFuture<String> future) {
+			this.entry = entry;
+			this.future = future;
+		}
+	}
+
+	/**
+	 * A queued request.
+	 */
+	private static final class Entry {
+
+		private final byte[] body;
+		private final String contentType;
+		private final List<HttpHeader> headers;
+		private final String key;
+		private final RequestType requestType;
+		private final String url;
+		private long recordLength;
+
+		private Entry(String key, RequestType requestType, String url, List<HttpHeader> headers, String contentType, byte[] body) {
+			this.key = key;
+			this.requestType = requestType;
+			this.url = url;
+			this.headers = headers;
+			this.contentType = contentType;
+			this.body = body;
+		}
+
+		private static Entry fromByteArray(byte[] bytes) throws IOException {
+
+			DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(bytes));
+
+			String key = inputStream.readUTF();
+			RequestType requestType;
+
+			try {
+				requestType = RequestType.valueOf(inputStream.readUTF());
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Unknown request type in the offline queue");
+			}
+
+			String url = inputStream.readUTF();
+			int headerCount = inputStream.readInt();
+			List<HttpHeader> headers = new ArrayList<>(Math.max(0, headerCount));
+
+			for (int i = 0; i < headerCount; i++) {
+				headers.add(new HttpHeader(inputStream.readUTF(), inputStream.readUTF()));
+			}
+
+			String contentType = inputStream.readBoolean() ? inputStream.readUTF() : null;
+			int bodyLength = inputStream.readInt();
+			byte[] body = null;
+
+			if (bodyLength >= 0) {
+				body = new byte[bodyLength];
+				inputStream.readFully(body);
+			}
+
+			return new Entry(key, requestType, url, headers, contentType, body);
+		}
+
+		private byte[] toByteArray() throws IOException {
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream outputStream = new DataOutputStream(bytes);
+
+			outputStream.writeUTF(key);
+			outputStream.writeUTF(requestType.name());
+			outputStream.writeUTF(url);
+			outputStream.writeInt(headers.size());
+
+			for (HttpHeader header : headers) {
+				outputStream.writeUTF(header.getName());
+				outputStream.writeUTF(header.getValue());
+			}
+
+			outputStream.writeBoolean(contentType != null);
+
+			if (contentType != null) {
+				outputStream.writeUTF(contentType);
+			}
+
+			outputStream.writeInt(body == null ? -1 : body.length);
+
+			if (body != null) {
+				outputStream.write(body);
+			}
+
+			return bytes.toByteArray();
+		}
+
+		/**
+		 * Creates the request message which replays the request. The queue retries it, so the message is not retried
+		 * on its own.
+		 *
+		 * @return Returns the request message.
+		 */
+		private HttpRequestMessage createRequestMessage() {
+
+			HttpRequestMessage requestMessage = new HttpRequestMessage(url, requestType);
+
+			for (HttpHeader header : headers) {
+				requestMessage.addHeader(header);
+			}
+
+			requestMessage.addHeader(new HttpHeader(IDEMPOTENCY_KEY_HEADER, key));
+			requestMessage.setPriority(RequestPriority.PREFETCH);
+			requestMessage.setRetryPolicy(RetryPolicy.none());
+
+			if (body != null) {
+
+				ByteArrayEntity entity = new ByteArrayEntity(body);
+
+				if (contentType != null) {
+					entity.setContentType(contentType);
+				}
+
+				requestMessage.setEntity(entity);
+			}
+
+			return requestMessage;
+		}
+	}
+}
@@ -0,0 +1,231 @@
+package com.nityankhanna.androidutils.http;
+
+import com.squareup.okhttp.Call;
+import com.squareup.okhttp.Headers;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Protocol;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.AbortableHttpRequest;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okio.BufferedSink;
+
+/**
+ * A transport which sends requests with OkHttp, multiplexing concurrent requests to a host over a single HTTP/2 or
+ * SPDY connection when the server supports it. The protocol is negotiated during the TLS handshake, so plain http
+ * requests and servers without HTTP/2 fall back to HTTP/1.1.
+ * <p/>
+ * Install it with HttpClientService.setTransport. Gzip and deflate are negotiated by HttpCompression, as they are
+ * with the default transport.
+ */
+public final class OkHttpTransport implements HttpTransport {
+
+	private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+
+	private final OkHttpClient client;
+	private final HttpRequestInterceptor compressionRequestInterceptor;
+	private final HttpResponseInterceptor compressionResponseInterceptor;
+
+	/**
+	 * Initializes a new instance of the OkHttpTransport class which prefers HTTP/2, then SPDY, then HTTP/1.1.
+	 * <p/>
+	 * The client shares the TLS sessions and certificate pins of the TlsSocketFactory.
+	 */
+	public OkHttpTransport() {
+		this(new OkHttpClient());
+		client.setProtocols(Arrays.asList(Protocol.HTTP_2, Protocol.SPDY_3, Protocol.HTTP_1_1));
+		client.setSslSocketFactory(TlsSocketFactory.getInstance().getSslContext().getSocketFactory());
+		client.setHostnameVerifier(TlsSocketFactory.getInstance());
+	}
+
+	/**
+	 * Initializes a new instance of the OkHttpTransport class with a configured client.
+	 *
+	 * @param client The client.
+	 */
+	public OkHttpTransport(OkHttpClient client) {
+		this.client = client;
+		compressionRequestInterceptor = HttpCompression.getInstance().createRequestInterceptor();
+		compressionResponseInterceptor = HttpCompression.getInstance().createResponseInterceptor();
+	}
+
+	/**
+	 * Gets the client.
+	 *
+	 * @return Returns the client, whose connection pool is shared by every request.
+	 */
+	public OkHttpClient getClient() {
+		return client;
+	}
+
+	@Override
+	public HttpResponse execute(HttpUriRequest request, HttpContext context) throws IOException {
+
+		try {
+			compressionRequestInterceptor.process(request, context);
+		} catch (HttpException e) {
+			throw new ClientProtocolException(e);
+		}
+
+		final Call call = clientFor(request.getParams()).newCall(createRequest(request));
+
+		if (request instanceof AbortableHttpRequest) {
+			((AbortableHttpRequest) request).setReleaseTrigger(new ConnectionReleaseTrigger() {
+
+				@Override
+				public void releaseConnection() {
+				}
+
+				@Override
+				public void abortConnection() {
+					call.cancel();
+				}
+			});
+		}
+
+		HttpResponse httpResponse = createResponse(call.execute());
+
+		try {
+			compressionResponseInterceptor.process(httpResponse, context);
+		} catch (HttpException e) {
+			throw new ClientProtocolException(e);
+		}
+
+		return httpResponse;
+	}
+
+	/**
+	 * Gets a client with the timeouts of the request. Clones share the connection pool of the client.
+	 */
+	private OkHttpClient clientFor(HttpParams params) {
+
+		int connectTimeout = HttpConnectionParams.getConnectionTimeout(params);
+		int socketTimeout = HttpConnectionParams.getSoTimeout(params);
+
+		if (connectTimeout == client.getConnectTimeout() && socketTimeout == client.getReadTimeout()) {
+			return client;
+		}
+
+		OkHttpClient requestClient = client.clone();
+
+		requestClient.setConnectTimeout(connectTimeout, TimeUnit.MILLISECONDS);
+		requestClient.setReadTimeout(socketTimeout, TimeUnit.MILLISECONDS);
+		requestClient.setWriteTimeout(socketTimeout, TimeUnit.MILLISECONDS);
+
+		return requestClient;
+	}
+
+	private static Request createRequest(HttpUriRequest request) {
+
+		Request.Builder builder = new Request.Builder().url(request.getURI().toString());
+
+		for (Header header : request.getAllHeaders()) {
+
+			String name = header.getName();
+
+			if (!name.equalsIgnoreCase("Content-Length") && !name.equalsIgnoreCase("Transfer-Encoding")
+					&& !name.equalsIgnoreCase("Host") && !name.equalsIgnoreCase("Connection")) {
+				builder.addHeader(name, header.getValue());
+			}
+		}
+
+		RequestBody body = null;
+
+		if (request instanceof HttpEntityEnclosingRequest) {
+
+			final HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+
+			if (entity != null) {
+
+				if (entity.getContentEncoding() != null) {
+					builder.header("Content-Encoding", entity.getContentEncoding().getValue());
+				}
+
+				body = new EntityRequestBody(entity);
+			}
+		}
+
+		return builder.method(request.getMethod(), body).build();
+	}
+
+	private static HttpResponse createResponse(Response response) {
+
+		ProtocolVersion version = response.protocol() == Protocol.HTTP_1_1 ? HttpVersion.HTTP_1_1
+				: (response.protocol() == Protocol.HTTP_1_0 ? HttpVersion.HTTP_1_0 : HTTP_2);
+		BasicHttpResponse httpResponse = new BasicHttpResponse(version, response.code(), response.message());
+		Headers headers = response.headers();
+
+		for (int i = 0; i < headers.size(); i++) {
+			httpResponse.addHeader(headers.name(i), headers.value(i));
+		}
+
+		ResponseBody body = response.body();
+
+		if (body != null) {
+
+			BasicHttpEntity entity = new BasicHttpEntity();
+
+			entity.setContent(body.byteStream());
+			entity.setContentLength(body.contentLength());
+			entity.setContentType(httpResponse.getFirstHeader("Content-Type"));
+			entity.setContentEncoding(httpResponse.getFirstHeader("Content-Encoding"));
+
+			httpResponse.setEntity(entity);
+		}
+
+		return httpResponse;
+	}
+
+	/**
+	 * Writes an entity as the body of an OkHttp request.
+	 */
+	private static class EntityRequestBody extends RequestBody {
+
+		private final HttpEntity entity;
+
+		private EntityRequestBody(HttpEntity entity) {
+			this.entity = entity;
+		}
+
+		@Override
+		public MediaType contentType() {
+			return entity.getContentType() == null ? null : MediaType.parse(entity.getContentType().getValue());
+		}
+
+		@Override
+		public long contentLength() {
+			return entity.getContentLength();
+		}
+
+		@Override
+		public void writeTo(BufferedSink sink) throws IOException {
+			entity.writeTo(sink.outputStream());
+			sink.flush();
+		}
+	}
+}
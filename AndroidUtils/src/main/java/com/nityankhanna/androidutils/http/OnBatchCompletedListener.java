@@ -0,0 +1,16 @@
+package com.nityankhanna.androidutils.http;
+
+import java.util.List;
+
+/**
+ * An interface which receives the responses of an HttpBatch once every request has completed.
+ */
+public interface OnBatchCompletedListener {
+
+	/**
+	 * A delegate method called on the main thread once every request of the batch has completed.
+	 *
+	 * @param responses The responses, in the order the requests were added. Failed requests have an error response.
+	 */
+	void onBatchCompleted(List<HttpResponseMessage> responses);
+}
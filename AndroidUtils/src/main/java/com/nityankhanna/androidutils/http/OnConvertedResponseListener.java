@@ -0,0 +1,25 @@
+package com.nityankhanna.androidutils.http;
+
+/**
+ * An interface for receiving the decoded body of a response, as a single callback on the main thread.
+ *
+ * @param <T> The type of the decoded body.
+ */
+public interface OnConvertedResponseListener<T> {
+
+	/**
+	 * A delegate method called when a request completes with a successful status code and its body has been decoded.
+	 *
+	 * @param body     The decoded body.
+	 * @param response The response.
+	 */
+	void onResponse(T body, HttpResponseMessage response);
+
+	/**
+	 * A delegate method called when a request fails, completes with an error status code, or its body cannot be
+	 * decoded.
+	 *
+	 * @param response The response, which contains the error.
+	 */
+	void onFailure(HttpResponseMessage response);
+}
@@ -0,0 +1,33 @@
+package com.nityankhanna.androidutils.http;
+
+/**
+ * An interface for receiving the progress of a FileDownload.
+ */
+public interface OnDownloadListener {
+
+	/**
+	 * A delegate method called on the main thread as the file is written. Calls are coalesced, so it is not called for
+	 * every chunk which is read.
+	 *
+	 * @param download        The download.
+	 * @param bytesDownloaded The number of bytes written to disk, including those of earlier attempts.
+	 * @param contentLength   The length of the file, or -1 if it is unknown.
+	 */
+	void onDownloadProgress(FileDownload download, long bytesDownloaded, long contentLength);
+
+	/**
+	 * A delegate method called on the main thread once the file has been downloaded and moved to its destination.
+	 *
+	 * @param download The download.
+	 */
+	void onDownloadCompleted(FileDownload download);
+
+	/**
+	 * A delegate method called on the main thread when the download fails. The progress is kept, so starting the
+	 * download again resumes it.
+	 *
+	 * @param download The download.
+	 * @param response The response which caused the failure, or an error response containing the exception.
+	 */
+	void onDownloadFailed(FileDownload download, HttpResponseMessage response);
+}
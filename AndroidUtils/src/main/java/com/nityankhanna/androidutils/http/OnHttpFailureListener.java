@@ -0,0 +1,16 @@
+package com.nityankhanna.androidutils.http;
+
+/**
+ * An interface which a response listener may also implement to be told when a request fails without a response.
+ * <p/>
+ * Listeners which do not implement it receive these failures through onClientError.
+ */
+public interface OnHttpFailureListener {
+
+	/**
+	 * A delegate method called when a request fails without a response, after any retries.
+	 *
+	 * @param response The error response, containing the exception which caused the failure.
+	 */
+	void onRequestFailed(HttpResponseMessage response);
+}
@@ -0,0 +1,17 @@
+package com.nityankhanna.androidutils.http;
+
+/**
+ * An interface for receiving the outcome of requests replayed by an OfflineRequestQueue.
+ */
+public interface OnQueuedRequestListener {
+
+	/**
+	 * A delegate method called on the main thread once a queued request has been replayed and removed from the queue.
+	 * <p/>
+	 * It is called for successful responses and for client errors, which are not retried.
+	 *
+	 * @param idempotencyKey The idempotency key the request was queued with.
+	 * @param response       The response.
+	 */
+	void onRequestReplayed(String idempotencyKey, HttpResponseMessage response);
+}
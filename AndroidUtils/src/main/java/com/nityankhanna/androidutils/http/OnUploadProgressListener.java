@@ -0,0 +1,16 @@
+package com.nityankhanna.androidutils.http;
+
+/**
+ * An interface for receiving the progress of a request body as it is sent.
+ */
+public interface OnUploadProgressListener {
+
+	/**
+	 * A delegate method called on the main thread as the body is written to the connection. Calls are coalesced, so it
+	 * is not called for every chunk which is written. A retried request reports its progress from the start again.
+	 *
+	 * @param bytesWritten  The number of bytes written.
+	 * @param contentLength The length of the body, or -1 if it is unknown.
+	 */
+	void onUploadProgress(long bytesWritten, long contentLength);
+}
@@ -0,0 +1,69 @@
+package com.nityankhanna.androidutils.http;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+
+/**
+ * A transport which records the responses of another transport into a MockHttpTransport, so they can be replayed
+ * offline.
+ * <p/>
+ * Responses are recorded after they have been decompressed, and their bodies are buffered in memory.
+ */
+public class RecordingHttpTransport implements HttpTransport {
+
+	private final HttpTransport transport;
+	private final MockHttpTransport recording;
+
+	/**
+	 * Initializes a new instance of the RecordingHttpTransport class.
+	 *
+	 * @param transport The transport which sends the requests.
+	 * @param recording The transport the responses are recorded into.
+	 */
+	public RecordingHttpTransport(HttpTransport transport, MockHttpTransport recording) {
+		this.transport = transport;
+		this.recording = recording;
+	}
+
+	/**
+	 * Gets the transport the responses are recorded into.
+	 *
+	 * @return Returns the recording.
+	 */
+	public MockHttpTransport getRecording() {
+		return recording;
+	}
+
+	@Override
+	public HttpResponse execute(HttpUriRequest request, HttpContext context) throws IOException {
+
+		HttpResponse httpResponse = transport.execute(request, context);
+		HttpEntity entity = httpResponse.getEntity();
+		byte[] body = entity == null ? new byte[0] : EntityUtils.toByteArray(entity);
+		MockResponse response = new MockResponse(httpResponse.getStatusLine().getStatusCode(), body);
+
+		response.setReasonPhrase(httpResponse.getStatusLine().getReasonPhrase());
+
+		for (HttpHeader header : HttpHeader.fromHeaders(httpResponse.getAllHeaders())) {
+			response.addHeader(header);
+		}
+
+		recording.addResponse(request.getMethod(), request.getURI().toString(), response);
+
+		if (entity != null) {
+
+			ByteArrayEntity bufferedEntity = new ByteArrayEntity(body);
+
+			bufferedEntity.setContentType(entity.getContentType());
+			httpResponse.setEntity(bufferedEntity);
+		}
+
+		return httpResponse;
+	}
+}
@@ -0,0 +1,23 @@
+package com.nityankhanna.androidutils.http;
+
+/**
+ * Represents the lane a request is queued in by the HttpDispatcher. Queued requests in a higher lane always start
+ * before those in a lower lane.
+ */
+public enum RequestPriority {
+
+	/**
+	 * Requests the user is waiting for, such as the content of the visible screen.
+	 */
+	IMMEDIATE,
+
+	/**
+	 * Regular requests.
+	 */
+	NORMAL,
+
+	/**
+	 * Background work which can wait, such as prefetching and synchronization.
+	 */
+	PREFETCH
+}
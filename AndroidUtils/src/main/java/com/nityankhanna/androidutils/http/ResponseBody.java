@@ -0,0 +1,282 @@
+package com.nityankhanna.androidutils.http;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.util.EntityUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Represents the body of an Http response.
+ * <p/>
+ * When the body is streamed from the connection it can only be read once.
+ */
+public final class ResponseBody implements Closeable {
+
+	/**
+	 * The default size of the chunks passed to a ResponseChunkListener.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+	private final HttpEntity entity;
+	private final HttpUriRequest request;
+	private InputStream stream;
+	private boolean exhausted;
+	private boolean closed;
+
+	/**
+	 * Initializes a new instance of the ResponseBody class with an entity.
+	 *
+	 * @param entity The entity.
+	 */
+	public ResponseBody(HttpEntity entity) {
+		this(entity, null);
+	}
+
+	ResponseBody(HttpEntity entity, HttpUriRequest request) {
+		this.entity = entity;
+		this.request = request;
+	}
+
+	/**
+	 * Gets the length of the body.
+	 *
+	 * @return Returns the length of the body, or -1 if it is unknown.
+	 */
+	public long getContentLength() {
+		return entity == null ? 0 : entity.getContentLength();
+	}
+
+	/**
+	 * Gets the content type of the body.
+	 *
+	 * @return Returns the value of the Content-Type header, or null if there is none.
+	 */
+	public String getContentType() {
+
+		if (entity == null) {
+			return null;
+		}
+
+		Header header = entity.getContentType();
+
+		return header == null ? null : header.getValue();
+	}
+
+	/**
+	 * Gets the charset of the body.
+	 *
+	 * @return Returns the charset of the content type, or UTF-8 if none is specified.
+	 */
+	public String getCharset() {
+
+		String charset = entity == null ? null : EntityUtils.getContentCharSet(entity);
+
+		return charset == null ? Encoding.UTF_8.getValue() : charset;
+	}
+
+	/**
+	 * Checks if the body can be read more than once.
+	 *
+	 * @return Returns true if the body is buffered in memory.
+	 */
+	public boolean isRepeatable() {
+		return entity == null || entity.isRepeatable();
+	}
+
+	/**
+	 * Gets the body as a stream.
+	 *
+	 * @return Returns an input stream of the body.
+	 *
+	 * @throws IOException
+	 */
+	public InputStream byteStream() throws IOException {
+
+		if (closed) {
+			throw new IllegalStateException("The response body has been closed");
+		}
+
+		if (entity == null) {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+
+		if (entity.isRepeatable()) {
+			return entity.getContent();
+		}
+
+		if (stream == null) {
+			stream = new ExhaustionTrackingStream(entity.getContent());
+		}
+
+		return stream;
+	}
+
+	/**
+	 * Gets the body as a channel.
+	 *
+	 * @return Returns a readable channel of the body.
+	 *
+	 * @throws IOException
+	 */
+	public ReadableByteChannel channel() throws IOException {
+		return Channels.newChannel(byteStream());
+	}
+
+	/**
+	 * Reads the body in chunks of the default size.
+	 *
+	 * @param listener The listener to receive the chunks.
+	 *
+	 * @return Returns the number of bytes read.
+	 *
+	 * @throws IOException
+	 */
+	public long readChunks(ResponseChunkListener listener) throws IOException {
+		return readChunks(listener, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Reads the body in chunks, reusing a single buffer so memory use is bounded by the chunk size.
+	 *
+	 * @param listener  The listener to receive the chunks.
+	 * @param chunkSize The maximum size of each chunk.
+	 *
+	 * @return Returns the number of bytes read.
+	 *
+	 * @throws IOException
+	 */
+	public long readChunks(ResponseChunkListener listener, int chunkSize) throws IOException {
+
+		InputStream inputStream = byteStream();
+		byte[] buffer = new byte[chunkSize];
+		long bytesRead = 0;
+		int count;
+
+		try {
+			while ((count = inputStream.read(buffer)) != -1) {
+				bytesRead += count;
+				listener.onChunkReceived(buffer, count, bytesRead);
+			}
+		} finally {
+			if (entity != null && entity.isRepeatable()) {
+				inputStream.close();
+			}
+		}
+
+		return bytesRead;
+	}
+
+	/**
+	 * Reads the whole body into memory.
+	 *
+	 * @return Returns the body as a byte array.
+	 *
+	 * @throws IOException
+	 */
+	public byte[] toByteArray() throws IOException {
+
+		if (entity == null) {
+			return new byte[0];
+		}
+
+		if (entity.isRepeatable()) {
+			return EntityUtils.toByteArray(entity);
+		}
+
+		return readFully(byteStream());
+	}
+
+	/**
+	 * Reads the whole body into a string, using the charset of the content type or UTF-8.
+	 *
+	 * @return Returns the body as a string.
+	 *
+	 * @throws IOException
+	 */
+	public String string() throws IOException {
+		return new String(toByteArray(), getCharset());
+	}
+
+	/**
+	 * Closes the body and releases the connection.
+	 * <p/>
+	 * A body which has not been read to the end is aborted rather than drained.
+	 */
+	@Override
+	public void close() {
+
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+
+		if (entity == null || entity.isRepeatable()) {
+			return;
+		}
+
+		if (!exhausted && request != null) {
+			request.abort();
+			return;
+		}
+
+		try {
+			entity.consumeContent();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static byte[] readFully(InputStream inputStream) throws IOException {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream(DEFAULT_CHUNK_SIZE);
+		byte[] buffer = new byte[DEFAULT_CHUNK_SIZE];
+		int count;
+
+		while ((count = inputStream.read(buffer)) != -1) {
+			outputStream.write(buffer, 0, count);
+		}
+
+		return outputStream.toByteArray();
+	}
+
+	private class ExhaustionTrackingStream extends FilterInputStream {
+
+		private ExhaustionTrackingStream(InputStream inputStream) {
+			super(inputStream);
+		}
+
+		@Override
+		public int read() throws IOException {
+
+			int value = super.read();
+
+			if (value == -1) {
+				exhausted = true;
+			}
+
+			return value;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+
+			int count = super.read(buffer, offset, length);
+
+			if (count == -1) {
+				exhausted = true;
+			}
+
+			return count;
+		}
+	}
+}
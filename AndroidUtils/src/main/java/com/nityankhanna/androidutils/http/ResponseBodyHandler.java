@@ -0,0 +1,21 @@
+package com.nityankhanna.androidutils.http;
+
+import java.io.IOException;
+
+/**
+ * An interface for consuming a response body on the background thread, before the response is delivered.
+ */
+public interface ResponseBodyHandler {
+
+	/**
+	 * A delegate method called on the background thread when the response headers have been received.
+	 * <p/>
+	 * The body is streamed from the connection and is closed once this method returns.
+	 *
+	 * @param response The response.
+	 * @param body     The response body.
+	 *
+	 * @throws IOException
+	 */
+	void onResponseBody(HttpResponseMessage response, ResponseBody body) throws IOException;
+}
@@ -0,0 +1,22 @@
+package com.nityankhanna.androidutils.http;
+
+import java.io.IOException;
+
+/**
+ * An interface for receiving a response body incrementally.
+ */
+public interface ResponseChunkListener {
+
+	/**
+	 * A delegate method called each time a chunk of the body is read.
+	 * <p/>
+	 * The buffer is reused between calls and must not be retained.
+	 *
+	 * @param buffer    The buffer containing the chunk.
+	 * @param length    The number of bytes in the chunk.
+	 * @param bytesRead The total number of bytes read so far.
+	 *
+	 * @throws IOException
+	 */
+	void onChunkReceived(byte[] buffer, int length, long bytesRead) throws IOException;
+}
@@ -0,0 +1,26 @@
+package com.nityankhanna.androidutils.http;
+
+import java.io.IOException;
+
+/**
+ * An interface for decoding a response body into a typed object on the background thread.
+ * <p/>
+ * Converters are called from the threads of the HttpDispatcher, so they must be thread safe. ResponseConverters
+ * provides converters for JSON, forms, strings and raw bytes.
+ *
+ * @param <T> The type of the decoded object.
+ */
+public interface ResponseConverter<T> {
+
+	/**
+	 * A delegate method called on the background thread once a successful response has been received and buffered.
+	 *
+	 * @param response The response.
+	 * @param body     The response body.
+	 *
+	 * @return Returns the decoded object.
+	 *
+	 * @throws IOException If the body cannot be decoded, which fails the request.
+	 */
+	T convert(HttpResponseMessage response, ResponseBody body) throws IOException;
+}
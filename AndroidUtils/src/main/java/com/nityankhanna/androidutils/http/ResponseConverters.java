@@ -0,0 +1,221 @@
+package com.nityankhanna.androidutils.http;
+
+import android.util.JsonReader;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides the built in response converters.
+ */
+public final class ResponseConverters {
+
+	private static final ResponseConverter<byte[]> BYTES = new ResponseConverter<byte[]>() {
+
+		@Override
+		public byte[] convert(HttpResponseMessage response, ResponseBody body) throws IOException {
+			return body.toByteArray();
+		}
+	};
+
+	private static final ResponseConverter<String> STRING = new ResponseConverter<String>() {
+
+		@Override
+		public String convert(HttpResponseMessage response, ResponseBody body) throws IOException {
+			return body.string();
+		}
+	};
+
+	private static final ResponseConverter<Object> JSON = json(new JsonObjectReader<Object>() {
+
+		@Override
+		public Object read(JsonReader reader) throws IOException {
+			return readValue(reader);
+		}
+	});
+
+	private static final ResponseConverter<HttpParameters> FORM = new ResponseConverter<HttpParameters>() {
+
+		@Override
+		public HttpParameters convert(HttpResponseMessage response, ResponseBody body) throws IOException {
+
+			HttpParameters.Builder builder = new HttpParameters.Builder();
+			String charset = body.getCharset();
+
+			for (String pair : body.string().split("&")) {
+
+				if (pair.isEmpty()) {
+					continue;
+				}
+
+				int separator = pair.indexOf('=');
+
+				if (separator < 0) {
+					builder.add(URLDecoder.decode(pair, charset), "");
+				} else {
+					builder.add(URLDecoder.decode(pair.substring(0, separator), charset), URLDecoder.decode(pair.substring(separator + 1), charset));
+				}
+			}
+
+			return builder.build();
+		}
+	};
+
+	private ResponseConverters() {
+	}
+
+	/**
+	 * Gets a converter which returns the body as a byte array.
+	 *
+	 * @return Returns the converter.
+	 */
+	public static ResponseConverter<byte[]> bytes() {
+		return BYTES;
+	}
+
+	/**
+	 * Gets a converter which returns the body as a string, decoded with the charset of the content type or UTF-8.
+	 *
+	 * @return Returns the converter.
+	 */
+	public static ResponseConverter<String> string() {
+		return STRING;
+	}
+
+	/**
+	 * Gets a converter which returns a JSON body as a tree of maps, lists, strings, longs, doubles and booleans.
+	 *
+	 * @return Returns the converter.
+	 */
+	public static ResponseConverter<Object> json() {
+		return JSON;
+	}
+
+	/**
+	 * Gets a converter which reads a JSON body into a typed object, straight from the body without building a tree.
+	 *
+	 * @param reader The reader of the object.
+	 * @param <T>    The type of the object.
+	 *
+	 * @return Returns the converter.
+	 */
+	public static <T> ResponseConverter<T> json(final JsonObjectReader<T> reader) {
+
+		return new ResponseConverter<T>() {
+
+			@Override
+			public T convert(HttpResponseMessage response, ResponseBody body) throws IOException {
+
+				JsonReader jsonReader = new JsonReader(new InputStreamReader(body.byteStream(), body.getCharset()));
+
+				try {
+					return reader.read(jsonReader);
+				} finally {
+					jsonReader.close();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Gets a converter which reads a JSON array body into a list of typed objects.
+	 *
+	 * @param elementReader The reader of each element.
+	 * @param <T>           The type of the elements.
+	 *
+	 * @return Returns the converter.
+	 */
+	public static <T> ResponseConverter<List<T>> jsonArray(final JsonObjectReader<T> elementReader) {
+
+		return json(new JsonObjectReader<List<T>>() {
+
+			@Override
+			public List<T> read(JsonReader reader) throws IOException {
+
+				List<T> elements = new ArrayList<>();
+
+				reader.beginArray();
+
+				while (reader.hasNext()) {
+					elements.add(elementReader.read(reader));
+				}
+
+				reader.endArray();
+
+				return elements;
+			}
+		});
+	}
+
+	/**
+	 * Gets a converter which returns an application/x-www-form-urlencoded body as parameters.
+	 *
+	 * @return Returns the converter.
+	 */
+	public static ResponseConverter<HttpParameters> form() {
+		return FORM;
+	}
+
+	private static Object readValue(JsonReader reader) throws IOException {
+
+		switch (reader.peek()) {
+
+			case BEGIN_OBJECT:
+
+				Map<String, Object> object = new LinkedHashMap<>();
+
+				reader.beginObject();
+
+				while (reader.hasNext()) {
+					object.put(reader.nextName(), readValue(reader));
+				}
+
+				reader.endObject();
+
+				return object;
+
+			case BEGIN_ARRAY:
+
+				List<Object> array = new ArrayList<>();
+
+				reader.beginArray();
+
+				while (reader.hasNext()) {
+					array.add(readValue(reader));
+				}
+
+				reader.endArray();
+
+				return array;
+
+			case BOOLEAN:
+				return reader.nextBoolean();
+
+			case NULL:
+				reader.nextNull();
+				return null;
+
+			case NUMBER:
+
+				String number = reader.nextString();
+
+				if (number.indexOf('.') >= 0 || number.indexOf('e') >= 0 || number.indexOf('E') >= 0) {
+					return Double.parseDouble(number);
+				}
+
+				try {
+					return Long.parseLong(number);
+				} catch (NumberFormatException e) {
+					return Double.parseDouble(number);
+				}
+
+			default:
+				return reader.nextString();
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package com.nityankhanna.androidutils.http;
+
+/**
+ * Represents where the body of a response came from.
+ */
+public enum ResponseSource {
+
+	/**
+	 * The response was received from the server.
+	 */
+	NETWORK,
+
+	/**
+	 * The response was served from the cache without contacting the server.
+	 */
+	CACHE,
+
+	/**
+	 * The response was served from the cache after the server confirmed it had not been modified.
+	 */
+	CONDITIONAL_CACHE
+}
@@ -0,0 +1,217 @@
+package com.nityankhanna.androidutils.http;
+
+import org.apache.http.impl.cookie.DateParseException;
+import org.apache.http.impl.cookie.DateUtils;
+
+import java.util.Random;
+
+/**
+ * Represents how a failed request is retried.
+ * <p/>
+ * Requests are retried after an I/O error or a retryable status code with an exponential backoff. A random jitter is
+ * subtracted from each delay so clients which failed together do not retry together. A Retry-After header sent with
+ * a 429 or 503 response is honoured, up to the maximum backoff.
+ */
+public class RetryPolicy {
+
+	private static final Random RANDOM = new Random();
+
+	private int maxAttempts = 3;
+	private long initialBackoffMillis = 500;
+	private long maxBackoffMillis = 30000;
+	private double backoffMultiplier = 2;
+	private double jitter = 0.5;
+	private boolean retryNonIdempotent = false;
+	private int[] retryableStatusCodes = {408, 429, 502, 503, 504};
+
+	/**
+	 * Initializes a new instance of the RetryPolicy class with the default settings: 3 attempts, starting with a
+	 * 500ms backoff which doubles each attempt, up to 30 seconds.
+	 */
+	public RetryPolicy() {
+	}
+
+	/**
+	 * Initializes a new instance of the RetryPolicy class with a maximum number of attempts and the backoff.
+	 *
+	 * @param maxAttempts          The maximum number of attempts, including the first one.
+	 * @param initialBackoffMillis The delay before the first retry.
+	 * @param maxBackoffMillis     The maximum delay between attempts.
+	 */
+	public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+		this.maxAttempts = maxAttempts;
+		this.initialBackoffMillis = initialBackoffMillis;
+		this.maxBackoffMillis = maxBackoffMillis;
+	}
+
+	/**
+	 * Creates a policy which never retries.
+	 *
+	 * @return Returns the retry policy.
+	 */
+	public static RetryPolicy none() {
+		return new RetryPolicy(1, 0, 0);
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	public void setMaxAttempts(int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+	public long getInitialBackoffMillis() {
+		return initialBackoffMillis;
+	}
+
+	public void setInitialBackoffMillis(long initialBackoffMillis) {
+		this.initialBackoffMillis = initialBackoffMillis;
+	}
+
+	public long getMaxBackoffMillis() {
+		return maxBackoffMillis;
+	}
+
+	public void setMaxBackoffMillis(long maxBackoffMillis) {
+		this.maxBackoffMillis = maxBackoffMillis;
+	}
+
+	public double getBackoffMultiplier() {
+		return backoffMultiplier;
+	}
+
+	public void setBackoffMultiplier(double backoffMultiplier) {
+		this.backoffMultiplier = backoffMultiplier;
+	}
+
+	/**
+	 * Gets the jitter.
+	 *
+	 * @return Returns the fraction of each delay which is randomized, between 0 and 1.
+	 */
+	public double getJitter() {
+		return jitter;
+	}
+
+	/**
+	 * Sets the jitter.
+	 *
+	 * @param jitter The fraction of each delay which is randomized, between 0 and 1.
+	 */
+	public void setJitter(double jitter) {
+		this.jitter = Math.max(0, Math.min(1, jitter));
+	}
+
+	/**
+	 * Checks if POST requests are retried.
+	 *
+	 * @return Returns true if requests which are not idempotent are retried.
+	 */
+	public boolean isRetryNonIdempotent() {
+		return retryNonIdempotent;
+	}
+
+	/**
+	 * Sets whether POST requests are retried. Only enable this if the server can detect duplicate requests.
+	 *
+	 * @param retryNonIdempotent True to retry requests which are not idempotent.
+	 */
+	public void setRetryNonIdempotent(boolean retryNonIdempotent) {
+		this.retryNonIdempotent = retryNonIdempotent;
+	}
+
+	public int[] getRetryableStatusCodes() {
+		return retryableStatusCodes;
+	}
+
+	public void setRetryableStatusCodes(int... retryableStatusCodes) {
+		this.retryableStatusCodes = retryableStatusCodes;
+	}
+
+	/**
+	 * Checks if a request may be attempted again.
+	 *
+	 * @param requestType The request type.
+	 * @param attempt     The number of the attempt which failed, starting at 1.
+	 *
+	 * @return Returns true if the request may be retried.
+	 */
+	public boolean canRetry(RequestType requestType, int attempt) {
+		return attempt < maxAttempts && (retryNonIdempotent || requestType != RequestType.POST);
+	}
+
+	/**
+	 * Checks if a response with a status code should be retried.
+	 *
+	 * @param statusCode The status code.
+	 *
+	 * @return Returns true if the status code is retryable.
+	 */
+	public boolean isRetryableStatus(int statusCode) {
+
+		for (int retryableStatusCode : retryableStatusCodes) {
+			if (retryableStatusCode == statusCode) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Gets the delay before the next attempt.
+	 *
+	 * @param attempt    The number of the attempt which failed, starting at 1.
+	 * @param retryAfter The value of the Retry-After header, or null.
+	 *
+	 * @return Returns the delay in milliseconds, or -1 if the server asked for a longer delay than the maximum backoff.
+	 */
+	public long getDelayMillis(int attempt, String retryAfter) {
+
+		if (retryAfter != null) {
+
+			long retryAfterMillis = parseRetryAfter(retryAfter.trim());
+
+			if (retryAfterMillis >= 0) {
+				return retryAfterMillis <= maxBackoffMillis ? retryAfterMillis : -1;
+			}
+		}
+
+		double backoff = Math.min(maxBackoffMillis, initialBackoffMillis * Math.pow(backoffMultiplier, attempt - 1));
+		double randomized;
+
+		synchronized (RANDOM) {
+			randomized = backoff * (1 - jitter * RANDOM.nextDouble());
+		}
+
+		return (long) randomized;
+	}
+
+	private static long parseRetryAfter(String retryAfter) {
+
+		try {
+			return Math.max(0, Long.parseLong(retryAfter) * 1000);
+		} catch (NumberFormatException ignored) {
+		}
+
+		try {
+			return Math.max(0, DateUtils.parseDate(retryAfter).getTime() - System.currentTimeMillis());
+		} catch (DateParseException ignored) {
+		}
+
+		return -1;
+	}
+
+	@Override
+	public String toString() {
+		return "RetryPolicy{" +
+				"maxAttempts=" + maxAttempts +
+				", initialBackoffMillis=" + initialBackoffMillis +
+				", maxBackoffMillis=" + maxBackoffMillis +
+				", backoffMultiplier=" + backoffMultiplier +
+				", jitter=" + jitter +
+				", retryNonIdempotent=" + retryNonIdempotent +
+				'}';
+	}
+}
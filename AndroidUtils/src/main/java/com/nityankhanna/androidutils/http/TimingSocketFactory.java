@@ -0,0 +1,276 @@
+package com.nityankhanna.androidutils.http;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.scheme.LayeredSocketFactory;
+import org.apache.http.conn.scheme.SocketFactory;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A socket factory which resolves, connects and secures sockets in separate steps, so each step can be timed and
+ * reported to the HttpTimings stored in the parameters of the request.
+ * <p/>
+ * Hosts are resolved with the DnsResolver of HttpClientService. When a host has several addresses, connections to them
+ * are raced as described by Happy Eyeballs (RFC 8305): the addresses are interleaved by family, and another attempt is
+ * started whenever the previous one fails or has not connected within 250 milliseconds. The first socket to connect is
+ * used and the others are closed.
+ */
+class TimingSocketFactory implements SocketFactory {
+
+	static final String TIMINGS_PARAMETER = "com.nityankhanna.androidutils.http.timings";
+
+	private static final long ATTEMPT_DELAY_MILLIS = 250;
+	private static final long ABORT_CHECK_MILLIS = 50;
+
+	private static final ExecutorService connectExecutor = Executors.newCachedThreadPool();
+
+	@Override
+	public Socket createSocket() throws IOException {
+		return new Socket();
+	}
+
+	@Override
+	public Socket connectSocket(Socket sock, String host, int port, InetAddress localAddress, int localPort, HttpParams params) throws IOException {
+
+		Socket socket = sock == null ? createSocket() : sock;
+
+		if (localAddress != null || localPort > 0) {
+			socket.bind(new InetSocketAddress(localAddress, localPort < 0 ? 0 : localPort));
+		}
+
+		long startNanos = System.nanoTime();
+		List<InetAddress> addresses = HttpClientService.getDnsResolver().lookup(host);
+		long resolvedNanos = System.nanoTime();
+		int connectTimeout = HttpConnectionParams.getConnectionTimeout(params);
+
+		if (addresses.isEmpty()) {
+			throw new UnknownHostException(host);
+		}
+
+		if (addresses.size() == 1 || localAddress != null || localPort > 0) {
+
+			InetAddress address = addresses.get(0);
+
+			try {
+				socket.connect(new InetSocketAddress(address, port), connectTimeout);
+			} catch (SocketTimeoutException e) {
+				throw new ConnectTimeoutException("Connect to " + host + "/" + address.getHostAddress() + ":" + port + " timed out");
+			}
+		} else {
+			socket = race(socket, host, interleave(addresses), port, connectTimeout);
+		}
+
+		long connectedNanos = System.nanoTime();
+
+		socket.setSoTimeout(HttpConnectionParams.getSoTimeout(params));
+
+		Socket securedSocket = secure(socket, host, port);
+		long securedNanos = System.nanoTime();
+		Object timings = params.getParameter(TIMINGS_PARAMETER);
+
+		if (timings instanceof HttpTimings) {
+			((HttpTimings) timings).markConnected(resolvedNanos - startNanos, connectedNanos - resolvedNanos, securedNanos - connectedNanos);
+		}
+
+		return securedSocket;
+	}
+
+	@Override
+	public boolean isSecure(Socket sock) throws IllegalArgumentException {
+		return false;
+	}
+
+	/**
+	 * Orders addresses so the families alternate, starting with the family of the preferred address.
+	 *
+	 * @param addresses The addresses in order of preference.
+	 *
+	 * @return Returns the interleaved addresses.
+	 */
+	private static List<InetAddress> interleave(List<InetAddress> addresses) {
+
+		boolean preferIpv6 = addresses.get(0) instanceof Inet6Address;
+		List<InetAddress> preferred = new ArrayList<>();
+		List<InetAddress> fallback = new ArrayList<>();
+
+		for (InetAddress address : addresses) {
+			if (address instanceof Inet6Address == preferIpv6) {
+				preferred.add(address);
+			} else {
+				fallback.add(address);
+			}
+		}
+
+		List<InetAddress> interleaved = new ArrayList<>(addresses.size());
+
+		for (int i = 0; i < Math.max(preferred.size(), fallback.size()); i++) {
+
+			if (i < preferred.size()) {
+				interleaved.add(preferred.get(i));
+			}
+
+			if (i < fallback.size()) {
+				interleaved.add(fallback.get(i));
+			}
+		}
+
+		return interleaved;
+	}
+
+	/**
+	 * Races connections to the addresses of a host, starting a new attempt whenever one fails or the attempt delay
+	 * passes.
+	 * <p/>
+	 * The attempts use their own sockets. The socket passed by the connection manager is only watched, since it is the
+	 * one closed when the request is aborted.
+	 *
+	 * @param socket         The socket of the connection manager.
+	 * @param host           The host name.
+	 * @param addresses      The addresses, in the order they are attempted.
+	 * @param port           The port.
+	 * @param connectTimeout The connect timeout of each attempt in milliseconds, or 0 for none.
+	 *
+	 * @return Returns the first socket which connected.
+	 *
+	 * @throws IOException If every attempt fails, the connect timeout passes or the request is aborted.
+	 */
+	private static Socket race(Socket socket, String host, List<InetAddress> addresses, final int port, final int connectTimeout) throws IOException {
+
+		final BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+		List<Socket> attempts = new ArrayList<>(addresses.size());
+		long deadlineNanos = connectTimeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectTimeout) : -1;
+		long nextAttemptNanos = 0;
+		IOException lastFailure = null;
+		Socket winner = null;
+		int failures = 0;
+
+		try {
+			while (winner == null) {
+
+				if (socket.isClosed()) {
+					throw new InterruptedIOException("The connection was aborted");
+				}
+
+				long nowNanos = System.nanoTime();
+
+				if (attempts.size() < addresses.size() && nowNanos >= nextAttemptNanos) {
+
+					final Socket attempt = new Socket();
+					final InetAddress address = addresses.get(attempts.size());
+
+					attempts.add(attempt);
+					nextAttemptNanos = nowNanos + TimeUnit.MILLISECONDS.toNanos(ATTEMPT_DELAY_MILLIS);
+
+					connectExecutor.execute(new Runnable() {
+
+						@Override
+						public void run() {
+							try {
+								attempt.connect(new InetSocketAddress(address, port), connectTimeout);
+								results.add(attempt);
+							} catch (IOException e) {
+								results.add(e);
+							}
+						}
+					});
+				}
+
+				if (deadlineNanos != -1 && nowNanos >= deadlineNanos) {
+					throw new ConnectTimeoutException("Connect to " + host + ":" + port + " timed out");
+				}
+
+				Object result;
+
+				try {
+					result = results.poll(ABORT_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					throw new InterruptedIOException("Interrupted while connecting to " + host);
+				}
+
+				if (result instanceof Socket) {
+					winner = (Socket) result;
+				} else if (result instanceof IOException) {
+
+					lastFailure = (IOException) result;
+					nextAttemptNanos = 0;
+
+					if (++failures == addresses.size()) {
+						throw lastFailure instanceof SocketTimeoutException
+								? new ConnectTimeoutException("Connect to " + host + ":" + port + " timed out")
+								: lastFailure;
+					}
+				}
+			}
+
+			return winner;
+		} finally {
+			for (Socket attempt : attempts) {
+				if (attempt != winner) {
+					try {
+						attempt.close();
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Secures a connected socket.
+	 *
+	 * @param socket The connected socket.
+	 * @param host   The host name.
+	 * @param port   The port.
+	 *
+	 * @return Returns the socket to use for the connection.
+	 *
+	 * @throws IOException
+	 */
+	Socket secure(Socket socket, String host, int port) throws IOException {
+		return socket;
+	}
+
+	/**
+	 * A timing socket factory for https, which performs the TLS handshake with another layered socket factory.
+	 */
+	static final class Layered extends TimingSocketFactory implements LayeredSocketFactory {
+
+		private final LayeredSocketFactory tlsSocketFactory;
+
+		Layered(LayeredSocketFactory tlsSocketFactory) {
+			this.tlsSocketFactory = tlsSocketFactory;
+		}
+
+		@Override
+		public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+			return tlsSocketFactory.createSocket(socket, host, port, autoClose);
+		}
+
+		@Override
+		public boolean isSecure(Socket sock) throws IllegalArgumentException {
+			return tlsSocketFactory.isSecure(sock);
+		}
+
+		@Override
+		Socket secure(Socket socket, String host, int port) throws IOException {
+			return tlsSocketFactory.createSocket(socket, host, port, true);
+		}
+	}
+}
@@ -0,0 +1,569 @@
+package com.nityankhanna.androidutils.http;
+
+import android.util.Base64;
+
+import org.apache.http.conn.scheme.LayeredSocketFactory;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.conn.ssl.X509HostnameVerifier;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * The TLS layer shared by every HTTPS connection of HttpClientService.
+ * <p/>
+ * Sockets are created from a single SSLContext, so its client session cache lets later connections to a host resume
+ * the TLS session of an earlier one instead of performing a full handshake. The handshake is performed when the socket
+ * is created, so it is timed as part of the connection, and the certificate chain is then checked against the pins of
+ * the host, if there are any.
+ * <p/>
+ * Pins are not matched against the chain as the server sent it, since a server with a mis-issued certificate could
+ * append the pinned certificate to it. The chain is instead rebuilt from the leaf certificate, following the
+ * signatures of the certificates which were sent up to a root trusted by the trust manager, and only the
+ * certificates of that chain are matched.
+ * <p/>
+ * The OkHttpTransport shares the SSLContext, and uses this factory as its hostname verifier so the pins are checked
+ * once OkHttp has completed the handshake. Its handshakes are not counted, and it keeps the SSLContext it was created
+ * with.
+ */
+public final class TlsSocketFactory implements LayeredSocketFactory, HostnameVerifier {
+
+	private static final int MAX_SIGNERS = 9;
+	private static final String PIN_PREFIX = "sha256/";
+
+	private static TlsSocketFactory sharedInstance;
+
+	private final AtomicInteger fullHandshakeCount = new AtomicInteger();
+	private final Map<String, Set<String>> pins = new ConcurrentHashMap<>();
+	private final AtomicInteger pinningFailureCount = new AtomicInteger();
+	private final AtomicInteger resumedHandshakeCount = new AtomicInteger();
+	private volatile X509HostnameVerifier hostnameVerifier = SSLSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER;
+	private volatile SSLContext sslContext;
+	private volatile TrustRootIndex trustRootIndex;
+	private volatile X509TrustManager trustManager;
+
+	private TlsSocketFactory() {
+		trustManager = createDefaultTrustManager();
+		sslContext = createDefaultContext(trustManager);
+	}
+
+	/**
+	 * Returns a shared instance of the TlsSocketFactory class.
+	 *
+	 * @return Returns a shared instance of the TlsSocketFactory class.
+	 */
+	public static TlsSocketFactory getInstance() {
+
+		synchronized (TlsSocketFactory.class) {
+
+			if (sharedInstance == null) {
+				sharedInstance = new TlsSocketFactory();
+			}
+		}
+
+		return sharedInstance;
+	}
+
+	/**
+	 * Gets the SSLContext sockets are created from.
+	 *
+	 * @return Returns the SSL context.
+	 */
+	public SSLContext getSslContext() {
+		return sslContext;
+	}
+
+	/**
+	 * Gets the trust manager whose trusted roots the certificate chains are rebuilt up to when pins are checked.
+	 *
+	 * @return Returns the trust manager.
+	 */
+	public X509TrustManager getTrustManager() {
+		return trustManager;
+	}
+
+	/**
+	 * Sets the SSLContext sockets are created from, such as one which trusts a private certificate authority. Sessions
+	 * of the previous context are not resumed.
+	 *
+	 * @param sslContext   The SSL context.
+	 * @param trustManager The trust manager the SSL context was initialized with.
+	 */
+	public void setSslContext(SSLContext sslContext, X509TrustManager trustManager) {
+
+		if (sslContext == null) {
+			throw new IllegalArgumentException("The SSL context cannot be null");
+		}
+
+		if (trustManager == null) {
+			throw new IllegalArgumentException("The trust manager cannot be null");
+		}
+
+		this.trustManager = trustManager;
+		this.trustRootIndex = null;
+		this.sslContext = sslContext;
+	}
+
+	/**
+	 * Gets the verifier which checks the certificate matches the host.
+	 *
+	 * @return Returns the hostname verifier.
+	 */
+	public X509HostnameVerifier getHostnameVerifier() {
+		return hostnameVerifier;
+	}
+
+	/**
+	 * Sets the verifier which checks the certificate matches the host.
+	 *
+	 * @param hostnameVerifier The hostname verifier.
+	 */
+	public void setHostnameVerifier(X509HostnameVerifier hostnameVerifier) {
+
+		if (hostnameVerifier == null) {
+			throw new IllegalArgumentException("The hostname verifier cannot be null");
+		}
+
+		this.hostnameVerifier = hostnameVerifier;
+	}
+
+	/**
+	 * Sets the number of TLS sessions cached for resumption.
+	 *
+	 * @param size The number of sessions, or 0 for no limit.
+	 */
+	public void setSessionCacheSize(int size) {
+
+		SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+
+		if (sessionContext != null) {
+			sessionContext.setSessionCacheSize(size);
+		}
+	}
+
+	/**
+	 * Sets the time cached TLS sessions can be resumed for.
+	 *
+	 * @param seconds The time in seconds, or 0 for no limit.
+	 */
+	public void setSessionTimeout(int seconds) {
+
+		SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+
+		if (sessionContext != null) {
+			sessionContext.setSessionTimeout(seconds);
+		}
+	}
+
+	/**
+	 * Pins the certificates of a host. A connection to the host is only used if a certificate of its chain has the
+	 * public key of one of the pins.
+	 *
+	 * @param host The host name.
+	 * @param pins The SHA-256 hashes of the SubjectPublicKeyInfo of the certificates, such as sha256/AAAA...=, encoded
+	 *             with Base64.
+	 */
+	public void addPins(String host, String... pins) {
+
+		Set<String> hashes = new HashSet<>();
+
+		for (String pin : pins) {
+
+			if (!pin.startsWith(PIN_PREFIX)) {
+				throw new IllegalArgumentException("Pins must start with " + PIN_PREFIX + ": " + pin);
+			}
+
+			hashes.add(pin.substring(PIN_PREFIX.length()));
+		}
+
+		Set<String> existing = this.pins.get(host.toLowerCase(Locale.US));
+
+		if (existing != null) {
+			hashes.addAll(existing);
+		}
+
+		this.pins.put(host.toLowerCase(Locale.US), Collections.unmodifiableSet(hashes));
+	}
+
+	/**
+	 * Removes the pins of a host.
+	 *
+	 * @param host The host name.
+	 */
+	public void removePins(String host) {
+		pins.remove(host.toLowerCase(Locale.US));
+	}
+
+	/**
+	 * Gets the number of handshakes which established a new TLS session.
+	 *
+	 * @return Returns the full handshake count.
+	 */
+	public int getFullHandshakeCount() {
+		return fullHandshakeCount.get();
+	}
+
+	/**
+	 * Gets the number of handshakes which resumed a cached TLS session.
+	 *
+	 * @return Returns the resumed handshake count.
+	 */
+	public int getResumedHandshakeCount() {
+		return resumedHandshakeCount.get();
+	}
+
+	/**
+	 * Gets the number of connections which were closed because no certificate matched the pins of the host.
+	 *
+	 * @return Returns the pinning failure count.
+	 */
+	public int getPinningFailureCount() {
+		return pinningFailureCount.get();
+	}
+
+	@Override
+	public Socket createSocket() throws IOException {
+		return new Socket();
+	}
+
+	@Override
+	public Socket connectSocket(Socket sock, String host, int port, InetAddress localAddress, int localPort, HttpParams params) throws IOException {
+
+		Socket socket = sock == null ? createSocket() : sock;
+
+		if (localAddress != null || localPort > 0) {
+			socket.bind(new InetSocketAddress(localAddress, localPort < 0 ? 0 : localPort));
+		}
+
+		socket.connect(new InetSocketAddress(host, port), HttpConnectionParams.getConnectionTimeout(params));
+		socket.setSoTimeout(HttpConnectionParams.getSoTimeout(params));
+
+		return createSocket(socket, host, port, true);
+	}
+
+	@Override
+	public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+
+		SSLSocket sslSocket = (SSLSocket) sslContext.getSocketFactory().createSocket(socket, host, port, autoClose);
+
+		try {
+			long handshakeStartMillis = System.currentTimeMillis();
+
+			sslSocket.startHandshake();
+
+			SSLSession session = sslSocket.getSession();
+
+			// A resumed session keeps the creation time of the handshake which established it.
+			if (session.getCreationTime() < handshakeStartMillis) {
+				resumedHandshakeCount.incrementAndGet();
+			} else {
+				fullHandshakeCount.incrementAndGet();
+			}
+
+			hostnameVerifier.verify(host, sslSocket);
+			checkPins(host, session);
+		} catch (IOException e) {
+			sslSocket.close();
+			throw e;
+		}
+
+		return sslSocket;
+	}
+
+	@Override
+	public boolean isSecure(Socket sock) throws IllegalArgumentException {
+		return sock instanceof SSLSocket && !sock.isClosed();
+	}
+
+	/**
+	 * Verifies that the certificate of a session matches the host and the pins of the host.
+	 *
+	 * @param host    The host name.
+	 * @param session The TLS session.
+	 *
+	 * @return Returns true if the session can be used.
+	 */
+	@Override
+	public boolean verify(String host, SSLSession session) {
+
+		if (!hostnameVerifier.verify(host, session)) {
+			return false;
+		}
+
+		try {
+			checkPins(host, session);
+			return true;
+		} catch (SSLPeerUnverifiedException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * Checks that a certificate of the trusted chain has the public key of one of the pins of the host.
+	 *
+	 * @param host    The host name.
+	 * @param session The TLS session.
+	 *
+	 * @throws SSLPeerUnverifiedException If no certificate matches the pins.
+	 */
+	private void checkPins(String host, SSLSession session) throws SSLPeerUnverifiedException {
+
+		Set<String> hostPins = pins.get(host.toLowerCase(Locale.US));
+
+		if (hostPins == null) {
+			return;
+		}
+
+		List<X509Certificate> certificates = getTrustedChain(host, session.getPeerCertificates());
+		MessageDigest digest;
+
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new SSLPeerUnverifiedException("SHA-256 is not available to check the pins of " + host);
+		}
+
+		StringBuilder chain = new StringBuilder();
+
+		for (X509Certificate certificate : certificates) {
+
+			String hash = Base64.encodeToString(digest.digest(certificate.getPublicKey().getEncoded()), Base64.NO_WRAP);
+
+			if (hostPins.contains(hash)) {
+				return;
+			}
+
+			chain.append(' ').append(PIN_PREFIX).append(hash);
+		}
+
+		pinningFailureCount.incrementAndGet();
+
+		throw new SSLPeerUnverifiedException("Certificate pinning failure for " + host + ", chain:" + chain);
+	}
+
+	/**
+	 * Rebuilds the chain of a leaf certificate by following the signatures of the certificates the server sent, up to
+	 * a root trusted by the trust manager. Certificates which are not part of that chain are left out.
+	 *
+	 * @param host             The host name.
+	 * @param peerCertificates The certificates the server sent, starting with the leaf certificate.
+	 *
+	 * @return Returns the chain, starting with the leaf certificate and ending with the trusted root.
+	 *
+	 * @throws SSLPeerUnverifiedException If the chain does not lead to a trusted root.
+	 */
+	private List<X509Certificate> getTrustedChain(String host, Certificate[] peerCertificates) throws SSLPeerUnverifiedException {
+
+		List<X509Certificate> remaining = new ArrayList<>(peerCertificates.length);
+
+		for (Certificate certificate : peerCertificates) {
+			if (certificate instanceof X509Certificate) {
+				remaining.add((X509Certificate) certificate);
+			}
+		}
+
+		if (remaining.isEmpty()) {
+			throw new SSLPeerUnverifiedException("No X.509 certificates were sent by " + host);
+		}
+
+		TrustRootIndex index = getTrustRootIndex();
+		List<X509Certificate> chain = new ArrayList<>();
+		boolean foundTrustedCertificate = false;
+
+		chain.add(remaining.remove(0));
+
+		for (int i = 0; i < MAX_SIGNERS; i++) {
+
+			X509Certificate certificate = chain.get(chain.size() - 1);
+			X509Certificate trustedCertificate = index.findIssuer(certificate);
+
+			if (trustedCertificate != null) {
+
+				if (chain.size() > 1 || !certificate.equals(trustedCertificate)) {
+					chain.add(trustedCertificate);
+				}
+
+				// A self-signed trusted certificate is a root, so the chain is complete.
+				if (isSignedBy(trustedCertificate, trustedCertificate)) {
+					return chain;
+				}
+
+				foundTrustedCertificate = true;
+				continue;
+			}
+
+			X509Certificate signer = removeSigner(remaining, certificate);
+
+			if (signer != null) {
+				chain.add(signer);
+				continue;
+			}
+
+			if (foundTrustedCertificate) {
+				return chain;
+			}
+
+			throw new SSLPeerUnverifiedException("No trusted certificate signed " + certificate.getSubjectX500Principal() + " for " + host);
+		}
+
+		throw new SSLPeerUnverifiedException("The certificate chain of " + host + " is too long");
+	}
+
+	private TrustRootIndex getTrustRootIndex() {
+
+		TrustRootIndex index = trustRootIndex;
+
+		if (index == null) {
+			index = new TrustRootIndex(trustManager.getAcceptedIssuers());
+			trustRootIndex = index;
+		}
+
+		return index;
+	}
+
+	private static X509Certificate removeSigner(List<X509Certificate> certificates, X509Certificate certificate) {
+
+		for (Iterator<X509Certificate> it = certificates.iterator(); it.hasNext(); ) {
+
+			X509Certificate signer = it.next();
+
+			if (isSignedBy(certificate, signer)) {
+				it.remove();
+				return signer;
+			}
+		}
+
+		return null;
+	}
+
+	private static boolean isSignedBy(X509Certificate certificate, X509Certificate signer) {
+
+		if (!certificate.getIssuerX500Principal().equals(signer.getSubjectX500Principal())) {
+			return false;
+		}
+
+		try {
+			certificate.verify(signer.getPublicKey());
+			return true;
+		} catch (GeneralSecurityException e) {
+			// The certificate was signed by another certificate with the same name.
+			return false;
+		}
+	}
+
+	private static X509TrustManager createDefaultTrustManager() {
+
+		try {
+			TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+			factory.init((KeyStore) null);
+
+			for (TrustManager trustManager : factory.getTrustManagers()) {
+				if (trustManager instanceof X509TrustManager) {
+					return (X509TrustManager) trustManager;
+				}
+			}
+		} catch (GeneralSecurityException e) {
+			e.printStackTrace();
+		}
+
+		throw new IllegalStateException("No X.509 trust manager is available");
+	}
+
+	private static SSLContext createDefaultContext(X509TrustManager trustManager) {
+
+		try {
+			SSLContext context = SSLContext.getInstance("TLS");
+			context.init(null, new TrustManager[]{trustManager}, null);
+
+			return context;
+		} catch (GeneralSecurityException e) {
+			e.printStackTrace();
+		}
+
+		try {
+			return SSLContext.getDefault();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("No TLS implementation is available", e);
+		}
+	}
+
+	/**
+	 * The certificates trusted by a trust manager, indexed by their subject.
+	 */
+	private static final class TrustRootIndex {
+
+		private final Map<X500Principal, List<X509Certificate>> certificates = new HashMap<>();
+
+		private TrustRootIndex(X509Certificate[] trustedCertificates) {
+
+			for (X509Certificate certificate : trustedCertificates) {
+
+				List<X509Certificate> subjectCertificates = certificates.get(certificate.getSubjectX500Principal());
+
+				if (subjectCertificates == null) {
+					subjectCertificates = new ArrayList<>(1);
+					certificates.put(certificate.getSubjectX500Principal(), subjectCertificates);
+				}
+
+				subjectCertificates.add(certificate);
+			}
+		}
+
+		/**
+		 * Finds the trusted certificate which signed a certificate.
+		 *
+		 * @param certificate The certificate.
+		 *
+		 * @return Returns the trusted certificate, or null if no trusted certificate signed it.
+		 */
+		private X509Certificate findIssuer(X509Certificate certificate) {
+
+			List<X509Certificate> issuers = certificates.get(certificate.getIssuerX500Principal());
+
+			if (issuers == null) {
+				return null;
+			}
+
+			for (X509Certificate issuer : issuers) {
+				if (isSignedBy(certificate, issuer)) {
+					return issuer;
+				}
+			}
+
+			return null;
+		}
+	}
+}